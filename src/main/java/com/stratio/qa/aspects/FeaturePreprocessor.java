@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.aspects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single preprocessing pipeline for feature files: @include expansion and then @loop expansion (Singleton).
+ * <p>
+ * Both IncludeTagAspect and LoopTagAspect replace FeatureBuilder.read with it, so the result is the same
+ * whichever of them is woven first. Each file is read once per run, and included scenarios are cached by
+ * IncludeTagAspect by path and scenario name.
+ */
+public enum FeaturePreprocessor {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(FeaturePreprocessor.class);
+
+    private final Map<String, List<String>> files = new ConcurrentHashMap<>();
+
+    private final IncludeTagAspect includes = new IncludeTagAspect();
+
+    private final LoopTagAspect loops = new LoopTagAspect();
+
+    /**
+     * Get the source of a feature, with its @include and @loop tags expanded.
+     *
+     * @param path feature path
+     * @return String
+     * @throws Exception
+     */
+    public String preprocess(String path) throws Exception {
+        long start = System.nanoTime();
+        String folder = path.substring(0, path.lastIndexOf("/") + 1);
+
+        String source = includes.parseLines(new ArrayList<>(readLines(path)), folder);
+        List<String> lines = loops.parseLines(new ArrayList<>(Arrays.asList(source.split("\n", -1))));
+        source = String.join("\n", lines);
+
+        logger.info("Feature {} preprocessed in {} ms", path, (System.nanoTime() - start) / 1000000);
+        return source;
+    }
+
+    /**
+     * Get the lines of a file, reading it only the first time.
+     *
+     * @param path file path
+     * @return List, not modifiable
+     * @throws IOException
+     */
+    public List<String> readLines(String path) throws IOException {
+        List<String> lines = files.get(path);
+        if (lines == null) {
+            lines = Collections.unmodifiableList(Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8));
+            files.put(path, lines);
+        }
+        return lines;
+    }
+}
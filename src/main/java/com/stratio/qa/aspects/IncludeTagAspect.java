@@ -24,20 +24,26 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 @Aspect
 public class IncludeTagAspect {
 
+    private static final Pattern TAG_LINE = Pattern.compile("^\\s*(@\\w[^\\s(]*(\\([^)]*\\))?\\s*)+(#.*)?$");
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
 
+    private final Map<String, IncludedScenario> includedScenarios = new ConcurrentHashMap<>();
+
 
     @Pointcut("execution (private * cucumber.runtime.FeatureBuilder.read(..)) &&" + "args (resource)")
     protected void addIncludeTagPointcutScenario(Resource resource) {
@@ -49,12 +55,7 @@ public class IncludeTagAspect {
      */
     @Around(value = "addIncludeTagPointcutScenario(resource)")
     public String aroundAddIncludeTagPointcutScenario(Resource resource) throws Throwable {
-        String path = resource.getPath();
-        int endIndex = path.lastIndexOf("/") + 1;
-        path = path.substring(0, endIndex);
-        List<String> lines = Files.readAllLines(Paths.get(resource.getPath()), StandardCharsets.UTF_8);
-
-        return parseLines(lines, path);
+        return FeaturePreprocessor.INSTANCE.preprocess(resource.getPath());
     }
 
     public String parseLines(List<String> lines, String path) throws IncludeException {
@@ -62,18 +63,18 @@ public class IncludeTagAspect {
         String scenarioName;
         String[] params;
         boolean marked = false;
-        String nwsource = "";
+        StringBuilder nwsource = new StringBuilder();
 
 
         for (int lineOriginalFeature = 0; lineOriginalFeature < lines.size(); lineOriginalFeature++) {
             if (lines.get(lineOriginalFeature).contains("@include")) {
-                String lineToinclude = "";
+                StringBuilder lineToinclude = new StringBuilder();
                 for (int linesWithInclude = lineOriginalFeature; linesWithInclude < lines.size() && lines.get(linesWithInclude).contains("@include"); linesWithInclude++) {
                     featureName = getFeatureName(lines.get(linesWithInclude));
                     scenarioName = getScenName(lines.get(linesWithInclude));
                     params = getParams(lines.get(linesWithInclude));
                     lines.set(linesWithInclude, "");
-                    lineToinclude += featureStepConverter(path + featureName, scenarioName, params);
+                    lineToinclude.append(featureStepConverter(path + featureName, scenarioName, params));
                 }
 
                 //TODO: Simplify code
@@ -83,33 +84,33 @@ public class IncludeTagAspect {
                             if (lines.get(lineAfterInclude).toUpperCase().contains("BACKGROUND:") && !marked) {
                                 lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
                                 lines.set(lineAfterInclude, lines.get(indexForBackground));
-                                lines.set(indexForBackground, lineToinclude);
+                                lines.set(indexForBackground, lineToinclude.toString());
                                 marked = true;
-                                lineToinclude = "";
+                                lineToinclude.setLength(0);
                                 break;
                             }
                         }
                         if (!marked) {
                             lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
                             lines.set(lineAfterInclude, "\nBackground:\n" + lineToinclude);
-                            lineToinclude = "";
+                            lineToinclude.setLength(0);
                             break;
                         }
                     }
                     if ((lines.get(lineAfterInclude).toUpperCase().contains("SCENARIO:") || lines.get(lineAfterInclude).toUpperCase().contains("OUTLINE:")) && !lines.get(lineAfterInclude).toUpperCase().contains("@INCLUDE")) {
                         lines.set(lineOriginalFeature, lines.get(lineAfterInclude));
-                        lines.set(lineAfterInclude, lineToinclude);
-                        lineToinclude = "";
+                        lines.set(lineAfterInclude, lineToinclude.toString());
+                        lineToinclude.setLength(0);
                         break;
                     }
                 }
 
             }
-            nwsource += lines.get(lineOriginalFeature) + "\n";
-            logger.debug("New line written into source:\n" + lines.get(lineOriginalFeature));
+            nwsource.append(lines.get(lineOriginalFeature)).append("\n");
+            logger.debug("New line written into source:\n{}", lines.get(lineOriginalFeature));
         }
-        logger.debug("Final feature source: \n" + nwsource);
-        return nwsource;
+        logger.debug("Final feature source: \n{}", nwsource);
+        return nwsource.toString();
     }
 
     /**
@@ -163,63 +164,148 @@ public class IncludeTagAspect {
     }
 
     public String featureStepConverter(String feature, String scenarioName, String[] params) throws IncludeException {
-        boolean scenarioexists = false;
-        BufferedReader bufferedFeature = null;
-        String parsedFeature = "";
-        String sCurrentLine;
-
-
-        try {
+        return expand(getIncludedScenario(feature, scenarioName, new ArrayDeque<String>()), params);
+    }
 
-            bufferedFeature = new BufferedReader(new FileReader(feature));
-            while ((sCurrentLine = bufferedFeature.readLine()) != null) {
-                if (sCurrentLine.contains(scenarioName)) {
-                    scenarioexists = true;
-                    if (sCurrentLine.toUpperCase().contains("OUTLINE") && params == null) {
-                        throw new IncludeException("->  Parameters were not given for this scenario outline.");
-                    } else if (sCurrentLine.toUpperCase().contains("OUTLINE")) {
-                        BufferedReader auxBufferedFeature = bufferedFeature;
-                        String sParamline;
-                        while ((sParamline = auxBufferedFeature.readLine()) != null && !sParamline.toUpperCase().contains("SCENARIO")) {
-                            if (sParamline.contains("|")) {
-                                if (!checkParams(sParamline, params)) {
-                                    throw new IncludeException("-> Wrong number of parameters.");
-                                }
-                            } else if (!sParamline.toUpperCase().contains("EXAMPLES:")) {
-                                parsedFeature = parsedFeature + sParamline + "\n";
-                            }
-                        }
-                    } else if (!sCurrentLine.toUpperCase().contains("OUTLINE") && sCurrentLine.toUpperCase().contains("SCENARIO:")) {
-                        while ((sCurrentLine = bufferedFeature.readLine()) != null && !sCurrentLine.toUpperCase().contains("SCENARIO:") && !sCurrentLine.toUpperCase().contains("EXAMPLES:")) {
-                            parsedFeature = parsedFeature + sCurrentLine + "\n";
-                        }
-                    }
+    /**
+     * Get the steps of an included scenario with its params replaced, checking an outline gets one param per
+     * examples column.
+     *
+     * @param included included scenario
+     * @param params   keys and values of the include tag, or null
+     * @return String
+     * @throws IncludeException
+     */
+    private String expand(IncludedScenario included, String[] params) throws IncludeException {
+        if (included.outline && params == null) {
+            throw new IncludeException("->  Parameters were not given for this scenario outline.");
+        } else if (included.outline) {
+            for (String paramLine : included.paramLines) {
+                if (!checkParams(paramLine, params)) {
+                    throw new IncludeException("-> Wrong number of parameters.");
                 }
             }
-            if (!scenarioexists) {
-                throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
-            }
+        }
+
+        String parsedFeature = included.steps;
+        if (params != null) {
+            parsedFeature = doReplaceKeys(parsedFeature, params);
+        }
+
+        return parsedFeature;
+    }
 
-        } catch (FileNotFoundException e) {
+    /**
+     * Get the steps of a scenario to be included, with the @include tags of the scenario itself already
+     * expanded. Results are cached by feature and scenario name.
+     *
+     * @param feature      feature path
+     * @param scenarioName scenario name
+     * @param including    scenarios being included, to detect cycles
+     * @return IncludedScenario
+     * @throws IncludeException
+     */
+    private IncludedScenario getIncludedScenario(String feature, String scenarioName, Deque<String> including) throws IncludeException {
+        String key = feature + ":" + scenarioName;
+        IncludedScenario included = includedScenarios.get(key);
+        if (included != null) {
+            return included;
+        }
+        if (including.contains(key)) {
+            List<String> cycle = new ArrayList<>(including);
+            Collections.reverse(cycle);
+            cycle.add(key);
+            throw new IncludeException("-> Include cycle: " + String.join(" -> ", cycle));
+        }
+        including.push(key);
+
+        List<String> lines;
+        try {
+            lines = FeaturePreprocessor.INSTANCE.readLines(feature);
+        } catch (NoSuchFileException e) {
             throw new IncludeException("-> Feature file were not found: " + feature);
         } catch (IOException e) {
             throw new IncludeException("-> An I/O error appeared.");
-        } finally {
-            try {
-                if (bufferedFeature != null) {
-                    bufferedFeature.close();
+        }
+        String folder = feature.substring(0, feature.lastIndexOf("/") + 1);
+
+        boolean scenarioexists = false;
+        boolean outline = false;
+        StringBuilder parsedFeature = new StringBuilder();
+        List<String> paramLines = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            String sCurrentLine = lines.get(i);
+            if (!isScenarioLine(sCurrentLine) || !sCurrentLine.contains(scenarioName)) {
+                continue;
+            }
+            scenarioexists = true;
+
+            // Scenarios included by the included scenario go first, in the order of their tags
+            int firstTag = i;
+            while (firstTag > 0 && isTagLine(lines.get(firstTag - 1))) {
+                firstTag--;
+            }
+            for (int tag = firstTag; tag < i; tag++) {
+                if (lines.get(tag).contains("@include")) {
+                    String nested = lines.get(tag);
+                    parsedFeature.append(expand(getIncludedScenario(folder + getFeatureName(nested), getScenName(nested), including),
+                            getParams(nested.trim())));
                 }
-            } catch (IOException ex) {
-                ex.printStackTrace();
             }
-        }
 
-        if (params != null) {
-            parsedFeature = doReplaceKeys(parsedFeature, params);
+            if (sCurrentLine.toUpperCase().contains("OUTLINE")) {
+                outline = true;
+                for (i++; i < lines.size() && !isScenarioLine(lines.get(i)) && !isTagLine(lines.get(i)); i++) {
+                    if (lines.get(i).contains("|")) {
+                        paramLines.add(lines.get(i));
+                    } else if (!isExamplesLine(lines.get(i))) {
+                        parsedFeature.append(lines.get(i)).append("\n");
+                    }
+                }
+                i--;
+            } else {
+                for (i++; i < lines.size() && !isScenarioLine(lines.get(i)) && !isExamplesLine(lines.get(i))
+                        && !isTagLine(lines.get(i)); i++) {
+                    parsedFeature.append(lines.get(i)).append("\n");
+                }
+                i--;
+            }
+        }
+        if (!scenarioexists) {
+            throw new IncludeException("-> Scenario not present at the given feature: " + scenarioName);
         }
 
-        return parsedFeature;
+        included = new IncludedScenario(outline, parsedFeature.toString(), paramLines);
+        including.pop();
+        includedScenarios.put(key, included);
+        return included;
+    }
+
+    /**
+     * Checks if a line starts a scenario or a scenario outline.
+     *
+     * @param line feature line
+     * @return boolean
+     */
+    private static boolean isScenarioLine(String line) {
+        String keyword = line.trim().toUpperCase();
+        return keyword.startsWith("SCENARIO:") || keyword.startsWith("SCENARIO OUTLINE:");
+    }
+
+    private static boolean isExamplesLine(String line) {
+        return line.trim().toUpperCase().startsWith("EXAMPLES:");
+    }
 
+    /**
+     * Checks if a line only holds tags, as "@web @include(feature:a.feature,scenario:b)". Lines starting with
+     * a placeholder, as "@{IP.eth0}", are not tag lines.
+     *
+     * @param line feature line
+     * @return boolean
+     */
+    private static boolean isTagLine(String line) {
+        return TAG_LINE.matcher(line).matches();
     }
 
     public boolean checkParams(String sCurrentLine, String[] params) {
@@ -243,5 +329,18 @@ public class IncludeTagAspect {
         return checker;
     }
 
+    private static final class IncludedScenario {
+
+        private final boolean outline;
+
+        private final String steps;
 
+        private final List<String> paramLines;
+
+        private IncludedScenario(boolean outline, String steps, List<String> paramLines) {
+            this.outline = outline;
+            this.steps = steps;
+            this.paramLines = paramLines;
+        }
+    }
 }
@@ -23,9 +23,6 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
 
 @Aspect
@@ -44,7 +41,18 @@ public class LoopTagAspect {
      */
     @Around(value = "addLoopTagPointcutScenario(resource)")
     public String aroundAddLoopTagPointcutScenario(Resource resource) throws Throwable {
-        List<String> lines = Files.readAllLines(Paths.get(resource.getPath()), StandardCharsets.UTF_8);
+        return FeaturePreprocessor.INSTANCE.preprocess(resource.getPath());
+    }
+
+    /**
+     * Turns every scenario tagged with @loop(LIST,NAME) into a scenario outline, with one example for each
+     * element of the comma separated system property LIST.
+     *
+     * @param lines feature lines, modified in place
+     * @return List
+     * @throws Exception
+     */
+    public List<String> parseLines(List<String> lines) throws Exception {
         String listParams;
         String paramReplace;
 
@@ -76,7 +84,7 @@ public class LoopTagAspect {
                 s = s + elems.length;
             }
         }
-        return String.join("\n", lines);
+        return lines;
     }
 
     public void exampleLines (String name, String[] params, List<String> lines, int num) {
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.aspects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text split once into literal and placeholder segments, for one kind of placeholder: ${}, !{} or @{}.
+ * <p>
+ * Templates of the texts written in features are cached, so steps, DocStrings and DataTable cells repeated by
+ * scenario outlines are only scanned the first time. Texts built while replacing, which change with the saved
+ * values, are split every time instead (see {@link #parse}). An opening mark without its closing brace is kept as
+ * literal text. The cache keeps the PLACEHOLDER_TEMPLATE_CACHE_SIZE (default 10000) most recently used templates.
+ */
+public final class PlaceholderTemplate {
+
+    private static final int MAX_ENTRIES = Integer.parseInt(System.getProperty("PLACEHOLDER_TEMPLATE_CACHE_SIZE", "10000"));
+
+    private static final Map<String, PlaceholderTemplate> CACHE = new LinkedHashMap<String, PlaceholderTemplate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlaceholderTemplate> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final List<Segment> segments;
+
+    private final boolean placeholders;
+
+    private PlaceholderTemplate(List<Segment> segments) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.placeholders = segments.stream().anyMatch(s -> !s.isLiteral());
+    }
+
+    /**
+     * Get the template of a text written in a feature, splitting it only the first time.
+     *
+     * @param text text
+     * @param mark placeholder opening mark: $, ! or @
+     * @return PlaceholderTemplate
+     */
+    public static PlaceholderTemplate compile(String text, char mark) {
+        String key = mark + text;
+        synchronized (CACHE) {
+            PlaceholderTemplate template = CACHE.get(key);
+            if (template != null) {
+                return template;
+            }
+        }
+        PlaceholderTemplate template = parse(text, mark);
+        if (MAX_ENTRIES > 0) {
+            synchronized (CACHE) {
+                CACHE.put(key, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Get the template of a text without caching it, for texts built while replacing placeholders.
+     *
+     * @param text text
+     * @param mark placeholder opening mark: $, ! or @
+     * @return PlaceholderTemplate
+     */
+    public static PlaceholderTemplate parse(String text, char mark) {
+        return new PlaceholderTemplate(split(text, mark + "{"));
+    }
+
+    /**
+     * Number of cached templates.
+     *
+     * @return int
+     */
+    static int cacheSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    private static List<Segment> split(String text, String open) {
+        List<Segment> segments = new ArrayList<>();
+        int from = 0;
+        int start = text.indexOf(open);
+        while (start != -1) {
+            int end = text.indexOf("}", start);
+            if (end == -1) {
+                break;
+            }
+            if (start > from) {
+                segments.add(new Segment(text.substring(from, start), false));
+            }
+            segments.add(new Segment(text.substring(start, end + 1), true));
+            from = end + 1;
+            start = text.indexOf(open, from);
+        }
+        if (from < text.length()) {
+            segments.add(new Segment(text.substring(from), false));
+        }
+        return segments;
+    }
+
+    /**
+     * Checks whether the text has any placeholder.
+     *
+     * @return boolean
+     */
+    public boolean hasPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Get the segments of the text, in order.
+     *
+     * @return List
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Literal text or placeholder. Placeholders are split at their first dot in a name and a modifier, so
+     * ${VAR.toUpper} has name VAR and modifier toUpper.
+     */
+    public static final class Segment {
+
+        private final String text;
+
+        private final boolean placeholder;
+
+        private final String name;
+
+        private final String modifier;
+
+        private Segment(String text, boolean placeholder) {
+            this.text = text;
+            this.placeholder = placeholder;
+            if (placeholder && text.contains(".")) {
+                this.name = text.substring(2, text.indexOf("."));
+                this.modifier = text.substring(text.indexOf(".") + 1, text.length() - 1);
+            } else if (placeholder) {
+                this.name = text.substring(2, text.length() - 1);
+                this.modifier = "";
+            } else {
+                this.name = null;
+                this.modifier = null;
+            }
+        }
+
+        public boolean isLiteral() {
+            return !placeholder;
+        }
+
+        /**
+         * Get the segment text, as the whole placeholder for placeholders.
+         *
+         * @return String
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Get the text inside the braces of a placeholder.
+         *
+         * @return String
+         */
+        public String getInner() {
+            return text.substring(2, text.length() - 1);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getModifier() {
+            return modifier;
+        }
+    }
+}
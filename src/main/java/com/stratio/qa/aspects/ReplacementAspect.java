@@ -19,6 +19,7 @@ package com.stratio.qa.aspects;
 import com.stratio.qa.cucumber.testng.CucumberReporter;
 import com.stratio.qa.exceptions.NonReplaceableException;
 import com.stratio.qa.specs.CommonG;
+import com.stratio.qa.utils.RetrievedDataCache;
 import com.stratio.qa.utils.ThreadProperty;
 import gherkin.I18n;
 import gherkin.formatter.Reporter;
@@ -33,8 +34,13 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 public class ReplacementAspect {
@@ -43,6 +49,11 @@ public class ReplacementAspect {
 
     private String lastEchoedStep = "";
 
+    /**
+     * IPv4 address of each network interface found by @{IP.*} placeholders, looked up once per run.
+     */
+    private static final Map<String, String> INTERFACE_ADDRESSES = new ConcurrentHashMap<>();
+
 
     @Pointcut("(execution (gherkin.formatter.model.Scenario.new(..)) ||  execution (gherkin.formatter.model.ScenarioOutline.new(..))) && "
             + "args (comments, tags, keyword, name, description, line, id) ")
@@ -114,14 +125,16 @@ public class ReplacementAspect {
     }
 
     protected String replacedElement(String el, JoinPoint jp) throws NonReplaceableException {
+        // only the text written in the feature is cached, the ones built by replacing change with saved values
+        String original = el;
         if (el.contains("${")) {
-            el = replaceEnvironmentPlaceholders(el, jp);
+            el = replaceEnvironmentPlaceholders(el, jp, true);
         }
         if (el.contains("!{")) {
-            el = replaceReflectionPlaceholders(el, jp);
+            el = replaceReflectionPlaceholders(el, jp, el.equals(original));
         }
         if (el.contains("@{")) {
-            el = replaceCodePlaceholders(el, jp);
+            el = replaceCodePlaceholders(el, jp, el.equals(original));
         }
         return el;
     }
@@ -146,18 +159,38 @@ public class ReplacementAspect {
      * @throws Exception
      */
     protected String replaceCodePlaceholders(String element, JoinPoint pjp) throws NonReplaceableException {
-        String newVal = element;
-        while (newVal.contains("@{")) {
-            String placeholder = newVal.substring(newVal.indexOf("@{"), newVal.indexOf("}", newVal.indexOf("@{")) + 1);
-            String property = placeholder.substring(2, placeholder.length() - 1).toLowerCase();
-            String subproperty = "";
-            CommonG commonJson;
-            if (placeholder.contains(".")) {
-                property = placeholder.substring(2, placeholder.indexOf(".")).toLowerCase();
-                subproperty = placeholder.substring(placeholder.indexOf(".") + 1, placeholder.length() - 1);
-            } else {
+        return replaceCodePlaceholders(element, pjp, true);
+    }
+
+    private String replaceCodePlaceholders(String element, JoinPoint pjp, boolean original) throws NonReplaceableException {
+        PlaceholderTemplate template = template(element, '@', original);
+        if (!template.hasPlaceholders()) {
+            return element;
+        }
+        StringBuilder newVal = new StringBuilder();
+        Map<String, String> replaced = new HashMap<>();
+        List<PlaceholderTemplate.Segment> segments = template.getSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            PlaceholderTemplate.Segment segment = segments.get(i);
+            String placeholder = segment.getText();
+            if (segment.isLiteral()) {
+                newVal.append(placeholder);
+                continue;
+            }
+            if (replaced.containsKey(placeholder)) {
+                newVal.append(replaced.get(placeholder));
+                continue;
+            }
+            String property = segment.getName().toLowerCase();
+            String subproperty = segment.getModifier();
+            String value = "";
+            if (!placeholder.contains(".")) {
                 if (pjp.getThis() instanceof CucumberReporter.TestMethod) {
-                    return newVal;
+                    for (int j = i; j < segments.size(); j++) {
+                        String text = segments.get(j).getText();
+                        newVal.append(replaced.containsKey(text) ? replaced.get(text) : text);
+                    }
+                    return newVal.toString();
                 } else {
                     logger.error("{} -> {} placeholded element has not been replaced previously.", element, property);
                     throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
@@ -166,39 +199,51 @@ public class ReplacementAspect {
 
             switch (property) {
                 case "ip":
-                    boolean found = false;
-                    if (!subproperty.isEmpty()) {
-                        Enumeration<InetAddress> ifs = null;
-                        try {
-                            ifs = NetworkInterface.getByName(subproperty).getInetAddresses();
-                        } catch (SocketException e) {
-                            this.logger.error(e.getMessage());
-                        }
-                        while (ifs.hasMoreElements() && !found) {
-                            InetAddress itf = ifs.nextElement();
-                            if (itf instanceof Inet4Address) {
-                                String ip = itf.getHostAddress();
-                                newVal = newVal.replace(placeholder, ip);
-                                found = true;
-                            }
-                        }
-                    }
-                    if (!found) {
-                        throw new NonReplaceableException("Interface " + subproperty + " not available");
+                    value = INTERFACE_ADDRESSES.get(subproperty);
+                    if (value == null) {
+                        value = interfaceAddress(subproperty);
+                        INTERFACE_ADDRESSES.put(subproperty, value);
                     }
                     break;
                 case "json":
                 case "file":
-                    commonJson = new CommonG();
-                    newVal = newVal.replace(placeholder, commonJson.retrieveData(subproperty, property));
+                    value = RetrievedDataCache.INSTANCE.lookup(subproperty, property);
+                    if (value == null) {
+                        value = new CommonG().retrieveData(subproperty, property);
+                    }
                     break;
                 default:
-                    commonJson = new CommonG();
-                    commonJson.getLogger().error("Replacement with an undefined option ({})", property);
-                    newVal = newVal.replace(placeholder, "");
+                    logger.error("Replacement with an undefined option ({})", property);
             }
+            replaced.put(placeholder, value);
+            newVal.append(value);
         }
-        return newVal;
+        return rescan(newVal.toString(), replaced.values(), "@{", pjp);
+    }
+
+    /**
+     * Get the first IPv4 address of a network interface.
+     *
+     * @param name interface name
+     * @return String
+     * @throws NonReplaceableException
+     */
+    private String interfaceAddress(String name) throws NonReplaceableException {
+        if (!name.isEmpty()) {
+            Enumeration<InetAddress> ifs = null;
+            try {
+                ifs = NetworkInterface.getByName(name).getInetAddresses();
+            } catch (SocketException e) {
+                this.logger.error(e.getMessage());
+            }
+            while (ifs.hasMoreElements()) {
+                InetAddress itf = ifs.nextElement();
+                if (itf instanceof Inet4Address) {
+                    return itf.getHostAddress();
+                }
+            }
+        }
+        throw new NonReplaceableException("Interface " + name + " not available");
     }
 
 
@@ -215,11 +260,23 @@ public class ReplacementAspect {
      * @throws IllegalAccessException
      */
     protected String replaceReflectionPlaceholders(String element, JoinPoint pjp) throws NonReplaceableException {
-        String newVal = element;
-        while (newVal.contains("!{")) {
-            String placeholder = newVal.substring(newVal.indexOf("!{"),
-                    newVal.indexOf("}", newVal.indexOf("!{")) + 1);
-            String attribute = placeholder.substring(2, placeholder.length() - 1);
+        return replaceReflectionPlaceholders(element, pjp, true);
+    }
+
+    private String replaceReflectionPlaceholders(String element, JoinPoint pjp, boolean original) throws NonReplaceableException {
+        PlaceholderTemplate template = template(element, '!', original);
+        if (!template.hasPlaceholders()) {
+            return element;
+        }
+        StringBuilder newVal = new StringBuilder();
+        List<String> replaced = new ArrayList<>();
+        for (PlaceholderTemplate.Segment segment : template.getSegments()) {
+            if (segment.isLiteral()) {
+                newVal.append(segment.getText());
+                continue;
+            }
+            String placeholder = segment.getText();
+            String attribute = segment.getInner();
             // we want to use value previously saved
             String prop = ThreadProperty.get(attribute);
 
@@ -229,10 +286,11 @@ public class ReplacementAspect {
                 logger.error("{} -> {} local var has not been saved correctly previously.", element, attribute);
                 throw new NonReplaceableException("Unreplaceable placeholder: " + placeholder);
             } else {
-                newVal = newVal.replace(placeholder, prop);
+                replaced.add(prop);
+                newVal.append(prop);
             }
         }
-        return newVal;
+        return rescan(newVal.toString(), replaced, "!{", pjp);
     }
 
 
@@ -244,19 +302,24 @@ public class ReplacementAspect {
      * @return String
      */
     protected String replaceEnvironmentPlaceholders(String element, JoinPoint jp) throws NonReplaceableException {
-        String newVal = element;
-        while (newVal.contains("${")) {
-            String placeholder = newVal.substring(newVal.indexOf("${"),
-                    newVal.indexOf("}", newVal.indexOf("${")) + 1);
-            String modifier = "";
-            String sysProp;
-            if (placeholder.contains(".")) {
-                sysProp = placeholder.substring(2, placeholder.indexOf("."));
-                modifier = placeholder.substring(placeholder.indexOf(".") + 1,
-                        placeholder.length() - 1);
-            } else {
-                sysProp = placeholder.substring(2, placeholder.length() - 1);
+        return replaceEnvironmentPlaceholders(element, jp, true);
+    }
+
+    private String replaceEnvironmentPlaceholders(String element, JoinPoint jp, boolean original) throws NonReplaceableException {
+        PlaceholderTemplate template = template(element, '$', original);
+        if (!template.hasPlaceholders()) {
+            return element;
+        }
+        StringBuilder newVal = new StringBuilder();
+        List<String> replaced = new ArrayList<>();
+        for (PlaceholderTemplate.Segment segment : template.getSegments()) {
+            if (segment.isLiteral()) {
+                newVal.append(segment.getText());
+                continue;
             }
+            String placeholder = segment.getText();
+            String modifier = segment.getModifier();
+            String sysProp = segment.getName();
 
             String prop = System.getProperty(sysProp);
 
@@ -272,10 +335,37 @@ public class ReplacementAspect {
             } else if ("toUpper".equals(modifier)) {
                 prop = prop.toUpperCase();
             }
-            newVal = newVal.replace(placeholder, prop);
+            replaced.add(prop);
+            newVal.append(prop);
         }
 
+        return rescan(newVal.toString(), replaced, "${", jp);
+    }
+
+    /**
+     * Replaced values may hold placeholders themselves, which are replaced as well.
+     */
+    private String rescan(String newVal, Collection<String> values, String open, JoinPoint jp) throws NonReplaceableException {
+        for (String value : values) {
+            if (value.contains(open)) {
+                switch (open) {
+                    case "${":
+                        return replaceEnvironmentPlaceholders(newVal, jp, false);
+                    case "!{":
+                        return replaceReflectionPlaceholders(newVal, jp, false);
+                    default:
+                        return replaceCodePlaceholders(newVal, jp, false);
+                }
+            }
+        }
         return newVal;
     }
+
+    /**
+     * Texts written in features are cached, texts built by replacing are not.
+     */
+    private static PlaceholderTemplate template(String element, char mark, boolean original) {
+        return original ? PlaceholderTemplate.compile(element, mark) : PlaceholderTemplate.parse(element, mark);
+    }
 }
 
@@ -107,7 +107,7 @@ public class SeleniumAspect extends BaseGSpec {
                 common.captureEvidence(driver, "framehtmlSource", "assert");
                 common.captureEvidence(driver, "htmlSource", "assert");
                 common.captureEvidence(driver, "screenCapture", "assert");
-                logger.info("Screenshots are available at target/executions");
+                logger.info("Screenshots will be available at target/executions");
             } else {
                 logger.info("Got no Selenium driver to capture a screen");
             }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.aspects;
+
+import com.stratio.qa.utils.StepTimings;
+import cucumber.runtime.StepDefinitionMatch;
+import gherkin.I18n;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+@Aspect
+public class StepTimingAspect {
+
+    @Pointcut("execution (public void cucumber.runtime.StepDefinitionMatch.runStep(..)) && "
+            + "args (i18n)")
+    protected void stepRun(I18n i18n) {
+    }
+
+    /**
+     * Time a step definition run, placeholders already replaced, and record it by step definition pattern.
+     *
+     * @param pjp  ProceedingJoinPoint
+     * @param i18n I18n
+     * @throws Throwable
+     */
+    @Around(value = "stepRun(i18n)")
+    public void aroundStepRun(ProceedingJoinPoint pjp, I18n i18n) throws Throwable {
+        if (!StepTimings.INSTANCE.isEnabled()) {
+            pjp.proceed();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            pjp.proceed();
+        } finally {
+            StepTimings.INSTANCE.record(((StepDefinitionMatch) pjp.getThis()).getPattern(), System.nanoTime() - start);
+        }
+    }
+}
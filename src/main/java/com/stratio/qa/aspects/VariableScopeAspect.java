@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.aspects;
+
+import com.stratio.qa.utils.ScopedVariables;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+@Aspect
+public class VariableScopeAspect {
+
+    @Pointcut("execution (* cucumber.runtime.model.CucumberFeature.run(..)) && "
+            + "args (formatter, reporter, runtime)")
+    protected void featureRun(Formatter formatter, Reporter reporter, Runtime runtime) {
+    }
+
+    @Pointcut("execution (* cucumber.runtime.model.CucumberScenario.run(..)) && "
+            + "args (formatter, reporter, runtime)")
+    protected void scenarioRun(Formatter formatter, Reporter reporter, Runtime runtime) {
+    }
+
+    /**
+     * Keep the variables saved while running a feature in its scope, dropping them once it is done.
+     *
+     * @param pjp
+     * @param formatter
+     * @param reporter
+     * @param runtime
+     * @throws Throwable
+     */
+    @Around(value = "featureRun(formatter, reporter, runtime)")
+    public void aroundFeatureRun(ProceedingJoinPoint pjp, Formatter formatter, Reporter reporter, Runtime runtime) throws Throwable {
+        String feature = ((CucumberFeature) pjp.getThis()).getPath();
+        ScopedVariables.enterFeature(feature);
+        try {
+            pjp.proceed();
+        } finally {
+            ScopedVariables.exitFeature(feature);
+        }
+    }
+
+    /**
+     * Drop the scenario variables once the scenario is done.
+     *
+     * @param formatter
+     * @param reporter
+     * @param runtime
+     */
+    @After(value = "scenarioRun(formatter, reporter, runtime)")
+    public void afterScenarioRun(Formatter formatter, Reporter reporter, Runtime runtime) {
+        ScopedVariables.endScenario();
+    }
+}
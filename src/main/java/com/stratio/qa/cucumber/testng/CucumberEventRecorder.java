@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import cucumber.runtime.CucumberException;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Result;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formatter and reporter that keeps every event it gets, so events produced by a scenario run on a worker
+ * thread can be replayed later, in feature order, over the real formatters and reporters. The time of each
+ * event is kept too, and given by {@link #eventTime()} while it is replayed.
+ */
+public class CucumberEventRecorder implements InvocationHandler {
+
+    private final List<Method> methods = new ArrayList<>();
+
+    private static final ThreadLocal<Long> REPLAYED_TIME = new ThreadLocal<>();
+
+    private final List<Object[]> arguments = new ArrayList<>();
+
+    private final List<Long> times = new ArrayList<>();
+
+    private final Object proxy;
+
+    public CucumberEventRecorder() {
+        proxy = Proxy.newProxyInstance(CucumberEventRecorder.class.getClassLoader(),
+                new Class<?>[]{Formatter.class, Reporter.class}, this);
+    }
+
+    @Override
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass().equals(Object.class)) {
+            return method.invoke(this, args);
+        }
+        methods.add(method);
+        arguments.add(args);
+        times.add(System.currentTimeMillis());
+        return null;
+    }
+
+    /**
+     * @return Formatter recording its events
+     */
+    public Formatter formatter() {
+        return (Formatter) proxy;
+    }
+
+    /**
+     * @return Reporter recording its events
+     */
+    public Reporter reporter() {
+        return (Reporter) proxy;
+    }
+
+    /**
+     * Get the step results recorded so far.
+     *
+     * @return List
+     */
+    public synchronized List<Result> stepResults() {
+        return results("result");
+    }
+
+    /**
+     * Get the before and after hook results recorded so far.
+     *
+     * @return List
+     */
+    public synchronized List<Result> hookResults() {
+        return results("before", "after");
+    }
+
+    private List<Result> results(String... reporterMethods) {
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            if (method.getDeclaringClass().equals(Reporter.class) && Arrays.asList(reporterMethods).contains(method.getName())) {
+                Object[] args = arguments.get(i);
+                results.add((Result) args[args.length - 1]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Get the time an event happened: when it was recorded if it is being replayed, or else now.
+     *
+     * @return long, ms since the epoch
+     */
+    public static long eventTime() {
+        Long replayed = REPLAYED_TIME.get();
+        return replayed == null ? System.currentTimeMillis() : replayed;
+    }
+
+    /**
+     * Replay every recorded event, in the order they were received.
+     *
+     * @param formatter
+     * @param reporter
+     */
+    public synchronized void replay(Formatter formatter, Reporter reporter) {
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            Object target = method.getDeclaringClass().equals(Formatter.class) ? formatter : reporter;
+            REPLAYED_TIME.set(times.get(i));
+            try {
+                method.invoke(target, arguments.get(i));
+            } catch (IllegalAccessException e) {
+                throw new CucumberException(e);
+            } catch (InvocationTargetException e) {
+                throw new CucumberException(e.getCause());
+            } finally {
+                REPLAYED_TIME.remove();
+            }
+        }
+        methods.clear();
+        arguments.clear();
+        times.clear();
+    }
+}
@@ -16,16 +16,12 @@
 
 package com.stratio.qa.cucumber.testng;
 
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.PathNotFoundException;
-import com.ning.http.client.AsyncHttpClient;
-import com.ning.http.client.Response;
-import com.stratio.qa.specs.CommonG;
+import com.stratio.qa.utils.DurationHistory;
+import com.stratio.qa.utils.JiraTicketCache;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.runtime.CucumberException;
 import cucumber.runtime.Utils;
 import cucumber.runtime.io.URLOutputStream;
-import cucumber.runtime.io.UTF8OutputStreamWriter;
 import gherkin.formatter.Formatter;
 import gherkin.formatter.Reporter;
 import gherkin.formatter.model.*;
@@ -36,20 +32,17 @@ import org.w3c.dom.*;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -70,23 +63,25 @@ public class CucumberReporter implements Formatter, Reporter {
 
     private final Document jUnitDocument;
 
-    private final Element results;
+    private final StreamingXmlReport testNGReport;
 
-    private final Element jUnitResults;
+    private final StreamingXmlReport jUnitReport;
 
-    private final Element suite;
+    private int total = 0;
 
-    private final Element jUnitSuite;
+    private int passed = 0;
 
-    private final Element test;
+    private int failed = 0;
 
-    private String featureName;
+    private int skipped = 0;
+
+    private double totalDuration = 0;
 
-    private Writer writer;
+    private String featureName;
 
-    private Writer  writerJunit;
+    private String featureKey;
 
-    private Element clazz;
+    private double featureDuration;
 
     private Element root;
 
@@ -130,23 +125,16 @@ public class CucumberReporter implements Formatter, Reporter {
         this.cClass = cClass;
         this.additional = additional;
 
+        // Documents are only used to build each test method, which is streamed to the reports once finished
         try {
             document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            results = document.createElement("testng-results");
-            suite = document.createElement("suite");
-            test = document.createElement("test");
             callerClass = cClass;
-            suite.appendChild(test);
-            results.appendChild(suite);
-            document.appendChild(results);
             jUnitDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            jUnitResults = jUnitDocument.createElement("testsuites");
-            jUnitSuite = jUnitDocument.createElement("testsuite");
-            jUnitDocument.appendChild(jUnitResults);
-            jUnitResults.appendChild(jUnitSuite);
         } catch (ParserConfigurationException e) {
             throw new CucumberException("Error initializing DocumentBuilder.", e);
         }
+        testNGReport = new StreamingXmlReport(new File(url + cClass + additional + "TESTNG.xml.part"));
+        jUnitReport = new StreamingXmlReport(new File(url + cClass + additional + "JUNIT.xml.part"));
     }
 
     @Override
@@ -155,14 +143,21 @@ public class CucumberReporter implements Formatter, Reporter {
 
     @Override
     public void uri(String uri) {
+        featureKey = DurationHistory.featureKey(uri);
     }
 
     @Override
     public void feature(Feature feature) {
+        recordFeatureDuration();
         featureName = feature.getName();
-        clazz = document.createElement("class");
-        clazz.setAttribute("name", callerClass);
-        test.appendChild(clazz);
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("name", callerClass);
+        try {
+            testNGReport.end();
+            testNGReport.start("class", attributes);
+        } catch (XMLStreamException e) {
+            throw new CucumberException("Error writing report.", e);
+        }
     }
 
     @Override
@@ -183,8 +178,6 @@ public class CucumberReporter implements Formatter, Reporter {
     public void startOfScenarioLifeCycle(Scenario scenario) {
         root = document.createElement("test-method");
         jUnitRoot = jUnitDocument.createElement("testcase");
-        jUnitSuite.appendChild(jUnitRoot);
-        clazz.appendChild(root);
         testMethod = new TestMethod(featureName, scenario);
         testMethod.hooks = tmpHooks;
         tmpStepsBG.clear();
@@ -230,6 +223,13 @@ public class CucumberReporter implements Formatter, Reporter {
             e.printStackTrace();
         }
 
+        double duration = root.hasAttribute("duration-ms") ? Double.parseDouble(root.getAttribute("duration-ms")) : 0;
+        if (featureKey != null && root.hasAttribute("duration-ms")) {
+            DurationHistory.INSTANCE.record(featureKey + "#" + root.getAttribute("name"), duration);
+            featureDuration += duration;
+        }
+        count(root.getAttribute(STATUS), duration);
+
         this.position++;
         if ((tmpExamples != null) && (iteration >= tmpExamples.getRows().size())) {
             tmpExamples = null;
@@ -237,8 +237,16 @@ public class CucumberReporter implements Formatter, Reporter {
         tmpHooks.clear();
         tmpSteps.clear();
         tmpStepsBG.clear();
-        testMethod = null;
         jUnitRoot.setAttribute("classname", callerClass);
+        try {
+            testNGReport.write(root);
+            if (!testMethod.ignoredRun) {
+                jUnitReport.write(jUnitRoot);
+            }
+        } catch (XMLStreamException | IOException e) {
+            throw new CucumberException("Error writing report.", e);
+        }
+        testMethod = null;
     }
 
     @Override
@@ -247,54 +255,39 @@ public class CucumberReporter implements Formatter, Reporter {
 
     @Override
     public void done() {
-        try {
-            results.setAttribute("total", String.valueOf(getElementsCountByAttribute(suite, STATUS, ".*")));
-            results.setAttribute("passed", String.valueOf(getElementsCountByAttribute(suite, STATUS, "PASS")));
-            results.setAttribute("failed", String.valueOf(getElementsCountByAttribute(suite, STATUS, "FAIL")));
-            results.setAttribute("skipped", String.valueOf(getElementsCountByAttribute(suite, STATUS, "SKIP")));
-            suite.setAttribute("name", CucumberReporter.class.getName());
-            suite.setAttribute("duration-ms",
-                    String.valueOf(getTotalDuration(suite.getElementsByTagName("test-method"))));
-            test.setAttribute("name", CucumberReporter.class.getName());
-            test.setAttribute("duration-ms",
-                    String.valueOf(getTotalDuration(suite.getElementsByTagName("test-method"))));
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-
-            URLOutputStream urlOS = null;
-            try {
-                urlOS = new URLOutputStream(Utils.toURL(url + cClass + additional + "TESTNG.xml"));
-                this.writer = new UTF8OutputStreamWriter(urlOS);
-            } catch (Exception e) {
-                logger.error("error writing TESTNG.xml file", e);
-            }
+        recordFeatureDuration();
+        DurationHistory.INSTANCE.save();
+
+        Map<String, String> results = new LinkedHashMap<>();
+        results.put("total", String.valueOf(total));
+        results.put("passed", String.valueOf(passed));
+        results.put("failed", String.valueOf(failed));
+        results.put("skipped", String.valueOf(skipped));
+        Map<String, String> suite = new LinkedHashMap<>();
+        suite.put("name", CucumberReporter.class.getName());
+        suite.put("duration-ms", String.valueOf(totalDuration));
+        Map<String, String> test = new LinkedHashMap<>(suite);
+
+        Map<String, String> jUnitResults = new LinkedHashMap<>();
+        Map<String, String> jUnitSuite = new LinkedHashMap<>();
+        jUnitSuite.put("name", callerClass + "." + featureName);
+        jUnitSuite.put("tests", String.valueOf(total));
+        jUnitSuite.put("failures", String.valueOf(failed));
+        jUnitSuite.put("skipped", String.valueOf(skipped));
+        jUnitSuite.put("timestamp", new java.util.Date().toString());
+        jUnitSuite.put("time", String.valueOf(totalDuration / 1000));
 
-            StreamResult streamResult = new StreamResult(writer);
-            DOMSource domSource = new DOMSource(document);
-            transformer.transform(domSource, streamResult);
-            jUnitSuite.setAttribute("name", callerClass + "." + featureName);
-            jUnitSuite.setAttribute("tests", String.valueOf(getElementsCountByAttribute(suite, STATUS, ".*")));
-            jUnitSuite.setAttribute("failures", String.valueOf(getElementsCountByAttribute(suite, STATUS, "FAIL")));
-            jUnitSuite.setAttribute("skipped", String.valueOf(getElementsCountByAttribute(suite, STATUS, "SKIP")));
-            jUnitSuite.setAttribute("timestamp", new java.util.Date().toString());
-            jUnitSuite.setAttribute("time",
-                    String.valueOf(getTotalDurationMs(suite.getElementsByTagName("test-method"))));
-            Transformer transformerJunit = TransformerFactory.newInstance().newTransformer();
-            transformerJunit.setOutputProperty(OutputKeys.INDENT, "yes");
-
-            try {
-                urlOS = new URLOutputStream(Utils.toURL(url + cClass + additional + "JUNIT.xml"));
-                this.writerJunit = new UTF8OutputStreamWriter(urlOS);
-            } catch (Exception e) {
-                logger.error("error writing TESTNG.xml file", e);
-            }
-
-            StreamResult streamResultJunit = new StreamResult(writerJunit);
-            DOMSource domSourceJunit = new DOMSource(jUnitDocument);
-            transformerJunit.transform(domSourceJunit, streamResultJunit);
-
-        } catch (TransformerException e) {
-            throw new CucumberException("Error transforming report.", e);
+        try {
+            testNGReport.finish(new URLOutputStream(Utils.toURL(url + cClass + additional + "TESTNG.xml")),
+                    Arrays.asList("testng-results", "suite", "test"), Arrays.asList(results, suite, test));
+        } catch (IOException | XMLStreamException e) {
+            logger.error("error writing TESTNG.xml file", e);
+        }
+        try {
+            jUnitReport.finish(new URLOutputStream(Utils.toURL(url + cClass + additional + "JUNIT.xml")),
+                    Arrays.asList("testsuites", "testsuite"), Arrays.asList(jUnitResults, jUnitSuite));
+        } catch (IOException | XMLStreamException e) {
+            logger.error("error writing JUNIT.xml file", e);
         }
     }
 
@@ -323,6 +316,9 @@ public class CucumberReporter implements Formatter, Reporter {
 
     @Override
     public void write(String text) {
+        if (testMethod != null) {
+            testMethod.output.add(text);
+        }
     }
 
     @Override
@@ -330,48 +326,33 @@ public class CucumberReporter implements Formatter, Reporter {
         testMethod.hooks.add(result);
     }
 
-    private int getElementsCountByAttribute(Node node, String attributeName, String attributeValue) {
-        int count = 0;
-
-        for (int i = 0; i < node.getChildNodes().getLength(); i++) {
-            count += getElementsCountByAttribute(node.getChildNodes().item(i), attributeName, attributeValue);
+    private void recordFeatureDuration() {
+        if (featureKey != null && featureDuration > 0) {
+            DurationHistory.INSTANCE.record(featureKey, featureDuration);
         }
-
-        NamedNodeMap attributes = node.getAttributes();
-        if (attributes != null) {
-            Node namedItem = attributes.getNamedItem(attributeName);
-            if (namedItem != null && namedItem.getNodeValue().matches(attributeValue)) {
-                count++;
-            }
-        }
-        return count;
+        featureDuration = 0;
     }
 
-    private double getTotalDuration(NodeList testCaseNodes) {
-        double totalDuration = 0;
-        for (int i = 0; i < testCaseNodes.getLength(); i++) {
-            try {
-                String duration = "0";
-                Node durationms = testCaseNodes.item(i).getAttributes().getNamedItem("duration-ms");
-                if (durationms != null) {
-                    duration = durationms.getNodeValue();
-                }
-                totalDuration += Double.parseDouble(duration);
-            } catch (NumberFormatException e) {
-                throw new CucumberException(e);
-            }
+    private void count(String status, double duration) {
+        if (!"".equals(status)) {
+            total++;
         }
-        return totalDuration;
-    }
-
-    private double getTotalDurationMs(NodeList testCaseNodes) {
-        return getTotalDuration(testCaseNodes) / 1000;
+        if ("PASS".equals(status)) {
+            passed++;
+        } else if ("FAIL".equals(status)) {
+            failed++;
+        } else if ("SKIP".equals(status)) {
+            skipped++;
+        }
+        totalDuration += duration;
     }
 
     public final class TestMethod {
 
         private boolean treatSkippedAsFailure = false;
 
+        private boolean ignoredRun = false;
+
         private final List<Result> results = new ArrayList<Result>();
 
         private Scenario scenario = null;
@@ -386,6 +367,8 @@ public class CucumberReporter implements Formatter, Reporter {
 
         private List<Result> hooks;
 
+        private final List<String> output = new ArrayList<String>();
+
         private Integer iteration = 1;
 
         public TestMethod(String feature, Scenario scenario) {
@@ -410,7 +393,7 @@ public class CucumberReporter implements Formatter, Reporter {
                 JunitElement.setAttribute("name", name + " " + data);
                 ThreadProperty.set("dataSet", data);
             }
-            element.setAttribute("started-at", DATE_FORMAT.format(new Date()));
+            element.setAttribute("started-at", DATE_FORMAT.format(new Date(CucumberEventRecorder.eventTime())));
         }
 
         public String obtainOutlineScenariosExamples(String examplesData) {
@@ -419,43 +402,18 @@ public class CucumberReporter implements Formatter, Reporter {
         }
 
         /**
-         * Checks the passed by ticket parameter validity against a Attlasian Jira account
+         * Checks the passed by ticket parameter validity against a Attlasian Jira account, through the suite
+         * ticket cache (see {@link JiraTicketCache})
          *
          * @param ticket
 
          */
         private boolean isValidJiraTicket (String ticket) {
-            String userJira = System.getProperty("usernamejira");
-            String passJira = System.getProperty("passwordjira");
             Boolean validTicket = false;
 
-            if ((userJira != null) || (passJira != null)  || "".equals(ticket)) {
-                CommonG comm = new CommonG();
-                AsyncHttpClient client = new AsyncHttpClient();
-                Future<Response> response = null;
-                Logger logger = LoggerFactory.getLogger(ThreadProperty.get("class"));
-
-                comm.setRestProtocol("https://");
-                comm.setRestHost("stratio.atlassian.net");
-                comm.setRestPort("");
-                comm.setClient(client);
-                String endpoint = "/rest/api/2/issue/" + ticket;
-                try {
-                    response = comm.generateRequest("GET", true, userJira, passJira, endpoint, "", "json");
-                    comm.setResponse(endpoint, response.get());
-                } catch (Exception e) {
-                    logger.error("Rest API Jira connection error " + String.valueOf(comm.getResponse().getStatusCode()));
-                    return false;
-                }
-
-                String json = comm.getResponse().getResponse();
-                String value = "";
-                try {
-                    value = JsonPath.read(json, "$.fields.status.name");
-                    value = value.toLowerCase();
-                } catch (PathNotFoundException pe) {
-                    logger.error("Json Path $.fields.status.name not found\r");
-                    logger.error(json);
+            if (JiraTicketCache.INSTANCE.isEnabled()) {
+                String value = JiraTicketCache.INSTANCE.getStatus(ticket);
+                if (value == null) {
                     return false;
                 }
 
@@ -481,7 +439,7 @@ public class CucumberReporter implements Formatter, Reporter {
             Junit.setAttribute("time", String.valueOf(calculateTotalDurationString() / 1000));
 
             element.setAttribute("duration-ms", String.valueOf(calculateTotalDurationString()));
-            element.setAttribute("finished-at", DATE_FORMAT.format(new Date()));
+            element.setAttribute("finished-at", DATE_FORMAT.format(new Date(CucumberEventRecorder.eventTime())));
 
             StringBuilder stringBuilder = new StringBuilder();
 
@@ -493,6 +451,10 @@ public class CucumberReporter implements Formatter, Reporter {
                 mergedsteps.addAll(steps);
             }
             addStepAndResultListing(stringBuilder, mergedsteps);
+            String listing = stringBuilder.toString();
+            for (String text : output) {
+                stringBuilder.append("\n").append(text);
+            }
             Result skipped = null;
             Result failed = null;
             Boolean ignored = false;
@@ -545,7 +507,7 @@ public class CucumberReporter implements Formatter, Reporter {
             String msg2 = "";
 
             if (ignoreRun) {
-                docJunit.getDocumentElement().getLastChild().removeChild(docJunit.getDocumentElement().getLastChild().getLastChild());
+                ignoredRun = true;
                 return;
             } else if (ignored && (!ignoreReason || (ignoreReason && isJiraTicketDone) || (ignoreReason && isWrongTicket))) {
                 element.setAttribute(STATUS, "FAIL");
@@ -572,7 +534,7 @@ public class CucumberReporter implements Formatter, Reporter {
                 Element systemOut = systemOutPrintJunit(docJunit, exceptionmsg);
                 Junit.appendChild(systemOut);
 
-            } else if ((stringBuilder.toString().contains("${")) || (stringBuilder.toString().contains("!{")) || (stringBuilder.toString().contains("@{"))) {
+            } else if ((listing.contains("${")) || (listing.contains("!{")) || (listing.contains("@{"))) {
                 element.setAttribute(STATUS, "FAIL");
                 Element exception = createException(doc, "The scenario has unreplaced variables.",
                         "The scenario has unreplaced variables.", " ");
@@ -16,6 +16,9 @@
 
 package com.stratio.qa.cucumber.testng;
 
+import com.stratio.qa.utils.JiraTicketCache;
+import com.stratio.qa.utils.ScopedVariables;
+import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.CucumberOptions;
 import cucumber.runtime.ClassFinder;
 import cucumber.runtime.CucumberException;
@@ -24,6 +27,15 @@ import cucumber.runtime.RuntimeOptionsFactory;
 import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
 import cucumber.runtime.io.ResourceLoaderClassFinder;
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenario;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Step;
 import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,8 +45,15 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class CucumberRunner {
@@ -45,6 +64,16 @@ public class CucumberRunner {
 
     private RuntimeOptions runtimeOptions;
 
+    private ResourceLoader resourceLoader;
+
+    private ClassFinder classFinder;
+
+    private boolean outOfShard = false;
+
+    private CucumberReporter reporterTestNG;
+
+    private final List<Throwable> parallelErrors = Collections.synchronizedList(new ArrayList<Throwable>());
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass()
             .getCanonicalName());
 
@@ -64,7 +93,7 @@ public class CucumberRunner {
     public CucumberRunner(Class<?> clazz, String... feature) throws IOException, ClassNotFoundException,
             InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
         classLoader = clazz.getClassLoader();
-        ResourceLoader resourceLoader = new MultiLoader(classLoader);
+        resourceLoader = new MultiLoader(classLoader);
 
         RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(clazz,
                 new Class[]{CucumberOptions.class});
@@ -75,7 +104,6 @@ public class CucumberRunner {
             targetExecutionsPath = targetExecutionsPath + testSuffix + "/";
         }
         boolean aux = new File(targetExecutionsPath).mkdirs();
-        CucumberReporter reporterTestNG;
 
         if ((feature.length == 0)) {
             reporterTestNG = new CucumberReporter(targetExecutionsPath, clazz.getCanonicalName(), "");
@@ -109,12 +137,31 @@ public class CucumberRunner {
         uniqueGlue.add("classpath:com/stratio/intelligence/testsAT/specs");
         uniqueGlue.add("classpath:com/stratio/postgresbd/testsAT/specs");
         uniqueGlue.add("classpath:com/stratio/universe/testsAT/specs");
+        GlueIndex glueIndex = new GlueIndex(classLoader);
         runtimeOptions.getGlue().clear();
-        runtimeOptions.getGlue().addAll(uniqueGlue);
+        if (glueIndex.isAvailable()) {
+            runtimeOptions.getGlue().addAll(glueIndex.filterGlue(uniqueGlue));
+        } else {
+            runtimeOptions.getGlue().addAll(uniqueGlue);
+        }
+
+        if (FeatureSharder.isEnabled()) {
+            List<String> shardFeatures = new FeatureSharder().filter(runtimeOptions.getFeaturePaths());
+            outOfShard = shardFeatures.isEmpty();
+            runtimeOptions.getFeaturePaths().clear();
+            runtimeOptions.getFeaturePaths().addAll(shardFeatures);
+        }
 
         runtimeOptions.addFormatter(reporterTestNG);
-        Set<Class<? extends ICucumberFormatter>> implementers = new Reflections("com.stratio.qa.utils")
-                .getSubTypesOf(ICucumberFormatter.class);
+        Set<Class<? extends ICucumberFormatter>> implementers;
+        if (glueIndex.isAvailable()) {
+            implementers = new HashSet<>();
+            for (String formatter : glueIndex.getFormatters("com.stratio.qa.utils")) {
+                implementers.add(Class.forName(formatter, true, classLoader).asSubclass(ICucumberFormatter.class));
+            }
+        } else {
+            implementers = new Reflections("com.stratio.qa.utils").getSubTypesOf(ICucumberFormatter.class);
+        }
 
         for (Class<? extends ICucumberFormatter> implementerClazz : implementers) {
             Constructor<?> ctor = implementerClazz.getConstructor();
@@ -122,22 +169,164 @@ public class CucumberRunner {
             runtimeOptions.addFormatter((ICucumberFormatter) ctor.newInstance());
         }
 
-        ClassFinder classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
+        classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
         runtime = new cucumber.runtime.Runtime(resourceLoader, classFinder, classLoader, runtimeOptions);
     }
 
     /**
      * Run the testclases(Features).
+     * <p>
+     * Scenarios run one after another unless CUCUMBER_PARALLEL_SCENARIOS is greater than 1. When SHARD_TOTAL is
+     * greater than 1, only the features of shard SHARD_INDEX are run (see {@link FeatureSharder}). Jira tickets
+     * of tillfixed tags are fetched at once before running.
      *
      * @throws IOException
      */
     public void runCukes() throws IOException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        if (outOfShard) {
+            logger.info("No features of this runner belong to shard {}", System.getProperty("SHARD_INDEX"));
+            reporterTestNG.done();
+            reporterTestNG.close();
+            return;
+        }
+        if (JiraTicketCache.INSTANCE.isEnabled()) {
+            JiraTicketCache.INSTANCE.prefetchFeatures(runtimeOptions.getFeaturePaths());
+        }
+        int workers = Integer.parseInt(System.getProperty("CUCUMBER_PARALLEL_SCENARIOS", "1"));
+        List<Throwable> errors;
+
+        if (workers > 1) {
+            runCukesInParallel(workers);
+            errors = parallelErrors;
+        } else {
+            runtime.run();
+            errors = runtime.getErrors();
+        }
+
+        if (!errors.isEmpty()) {
+            logger.error ("Got {} exceptions", errors);
+            throw new CucumberException(errors.get(0));
+        }
+    }
+
+    /**
+     * Run scenarios, and each example of scenario outlines, on a bounded pool of workers. Every worker has its
+     * own cucumber runtime (glue and worlds) and a copy of the caller ThreadProperty, plus the feature, scenario
+     * and dataSet of the scenario it runs (see {@link #startWorkerScenario}). Workers do not share feature
+     * variables: what a scenario saves is kept in its scenario scope and dropped before the next one. The formatter
+     * and reporter events of each scenario are recorded and replayed in feature order, so reports do not depend on
+     * which scenario finished first. A single summary of every scenario is printed at the end (see
+     * {@link ParallelSummary}).
+     *
+     * @param workers number of scenarios run at the same time
+     * @throws IOException
+     */
+    private void runCukesInParallel(int workers) throws IOException {
+        Formatter formatter = runtimeOptions.formatter(classLoader);
+        Reporter reporter = runtimeOptions.reporter(classLoader);
+        Properties properties = ThreadProperty.snapshot();
+        List<cucumber.runtime.Runtime> runtimes = Collections.synchronizedList(new ArrayList<cucumber.runtime.Runtime>());
+        ThreadLocal<cucumber.runtime.Runtime> workerRuntime = ThreadLocal.withInitial(() -> {
+            cucumber.runtime.Runtime workerRt = new cucumber.runtime.Runtime(resourceLoader, classFinder, classLoader, runtimeOptions);
+            runtimes.add(workerRt);
+            return workerRt;
+        });
+        ParallelSummary summary = new ParallelSummary();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        logger.info("Running scenarios with {} workers", workers);
+
+        try {
+            for (CucumberFeature feature : runtimeOptions.cucumberFeatures(resourceLoader)) {
+                formatter.uri(feature.getPath());
+                formatter.feature(feature.getGherkinFeature());
+                String featureName = feature.getGherkinFeature().getName();
+
+                List<CucumberEventRecorder> recorders = new ArrayList<>();
+                List<Future<?>> runs = new ArrayList<>();
+                for (CucumberTagStatement statement : feature.getFeatureElements()) {
+                    if (statement instanceof CucumberScenarioOutline) {
+                        CucumberScenarioOutline outline = (CucumberScenarioOutline) statement;
+                        CucumberEventRecorder outlineRecorder = new CucumberEventRecorder();
+                        outline.getGherkinModel().replay(outlineRecorder.formatter());
+                        for (Step step : outline.getSteps()) {
+                            outlineRecorder.formatter().step(step);
+                        }
+                        recorders.add(outlineRecorder);
+                        runs.add(null);
+
+                        for (CucumberExamples examples : outline.getCucumberExamplesList()) {
+                            CucumberEventRecorder examplesRecorder = new CucumberEventRecorder();
+                            examples.getExamples().replay(examplesRecorder.formatter());
+                            recorders.add(examplesRecorder);
+                            runs.add(null);
 
-        runtime.run();
+                            List<ExamplesTableRow> rows = examples.getExamples().getRows();
+                            List<CucumberScenario> scenarios = examples.createExampleScenarios();
+                            for (int i = 0; i < scenarios.size(); i++) {
+                                String dataSet = rows.get(i + 1).getCells().toString().replaceAll("\"", "¨");
+                                submit(pool, workerRuntime, properties, featureName, scenarios.get(i), dataSet, recorders, runs,
+                                        summary);
+                            }
+                        }
+                    } else {
+                        submit(pool, workerRuntime, properties, featureName, (CucumberScenario) statement, "", recorders, runs,
+                                summary);
+                    }
+                }
 
-        if (!runtime.getErrors().isEmpty()) {
-            logger.error ("Got {} exceptions", runtime.getErrors());
-            throw new CucumberException(runtime.getErrors().get(0));
+                for (int i = 0; i < recorders.size(); i++) {
+                    if (runs.get(i) != null) {
+                        runs.get(i).get();
+                    }
+                    recorders.get(i).replay(formatter, reporter);
+                }
+                formatter.eof();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException(e);
+        } catch (ExecutionException e) {
+            throw new CucumberException(e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
+
+        formatter.done();
+        formatter.close();
+        for (cucumber.runtime.Runtime workerRt : runtimes) {
+            parallelErrors.addAll(workerRt.getErrors());
+            summary.addSnippets(workerRt.getSnippets());
+        }
+        summary.print(System.out);
+    }
+
+    private void submit(ExecutorService pool, ThreadLocal<cucumber.runtime.Runtime> workerRuntime, Properties properties,
+                        String featureName, CucumberScenario scenario, String dataSet, List<CucumberEventRecorder> recorders,
+                        List<Future<?>> runs, ParallelSummary summary) {
+        CucumberEventRecorder recorder = new CucumberEventRecorder();
+        recorders.add(recorder);
+        String scenarioName = scenario.getGherkinModel().getName();
+        runs.add(pool.submit(() -> {
+            startWorkerScenario(properties, featureName, scenarioName, dataSet);
+            scenario.run(recorder.formatter(), recorder.reporter(), workerRuntime.get());
+            summary.addScenario(recorder.stepResults(), recorder.hookResults());
+        }));
+    }
+
+    /**
+     * Set up the variables of a scenario about to be run by a worker, dropping those of the previous one. Formatters
+     * only get its events once it has finished, so the feature, scenario and dataSet they would set (and evidences
+     * are named after) are set here.
+     *
+     * @param properties ThreadProperty of the runner
+     * @param feature    feature name
+     * @param scenario   scenario name
+     * @param dataSet    outline example values, empty for scenarios
+     */
+    static void startWorkerScenario(Properties properties, String feature, String scenario, String dataSet) {
+        ScopedVariables.startWorkerScenario(properties);
+        ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "feature", feature);
+        ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "scenario", scenario);
+        ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "dataSet", dataSet);
     }
 }
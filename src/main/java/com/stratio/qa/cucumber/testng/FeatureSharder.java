@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import com.stratio.qa.utils.DurationHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits the features of a suite among several JVMs so they take about the same time.
+ * <p>
+ * Every JVM sees the same features folder (SHARD_FEATURES_DIR, default src/test/resources/features) and the
+ * same {@link DurationHistory} file, read once per JVM and not written by the build, so all of them compute the same
+ * assignment and only run the features of shard SHARD_INDEX (0 based) out of SHARD_TOTAL. Features are bin packed,
+ * longest first, using their last duration. Features with no history are weighted by their step count, at the mean
+ * ms per step of the features that have one.
+ */
+public class FeatureSharder {
+
+    public static final double DEFAULT_STEP_DURATION = 1000;
+
+    private static final Pattern STEP = Pattern.compile("^(Given|When|Then|And|But|\\*)\\s");
+
+    private static final Pattern LINES = Pattern.compile("(:\\d+)+$");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getCanonicalName());
+
+    private final int index;
+
+    private final int total;
+
+    private final Map<String, Integer> shards;
+
+    /**
+     * Sharder configured with system properties.
+     *
+     * @throws IOException
+     */
+    public FeatureSharder() throws IOException {
+        this(Integer.parseInt(System.getProperty("SHARD_INDEX", "0")), Integer.parseInt(System.getProperty("SHARD_TOTAL", "1")),
+                new File(System.getProperty("SHARD_FEATURES_DIR", "src/test/resources/features")),
+                DurationHistory.INSTANCE.load());
+    }
+
+    /**
+     * @param index       shard run by this JVM, 0 based
+     * @param total       number of shards
+     * @param featuresDir folder holding every feature of the suite
+     * @param history     durations of previous runs
+     * @throws IOException
+     */
+    public FeatureSharder(int index, int total, File featuresDir, Properties history) throws IOException {
+        this.index = index;
+        this.total = total;
+        this.shards = assign(weights(countSteps(featuresDir), history), total);
+        logger.info("Shard {} of {}: {} features out of {}", index, total,
+                shards.values().stream().filter(shard -> shard == index).count(), shards.size());
+    }
+
+    /**
+     * Checks if sharding has been requested.
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return Integer.parseInt(System.getProperty("SHARD_TOTAL", "1")) > 1;
+    }
+
+    /**
+     * Keep the feature paths that belong to this shard. Folders are expanded to the features they hold. Any other
+     * path, with its line selectors (as x.feature:12) or not a file at all (as classpath ones), is assigned as a whole
+     * feature, so it runs in exactly one shard.
+     *
+     * @param featurePaths paths of a runner
+     * @return List
+     * @throws IOException
+     */
+    public List<String> filter(List<String> featurePaths) throws IOException {
+        List<String> assigned = new ArrayList<>();
+        for (String featurePath : featurePaths) {
+            String feature = LINES.matcher(featurePath).replaceFirst("");
+            File file = new File(feature);
+            if (file.isDirectory()) {
+                for (Path path : listFeatures(file)) {
+                    if (isAssigned(path.toString())) {
+                        assigned.add(path.toString());
+                    }
+                }
+            } else if (isAssigned(feature)) {
+                assigned.add(featurePath);
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Checks if a feature belongs to this shard. Features unknown to the sharder go to the first one.
+     *
+     * @param featurePath feature path or uri
+     * @return boolean
+     */
+    public boolean isAssigned(String featurePath) {
+        return shards.getOrDefault(DurationHistory.featureKey(featurePath), 0) == index;
+    }
+
+    /**
+     * Weight every feature by its last duration or, with no history, by its steps.
+     *
+     * @param steps   step count by feature key
+     * @param history durations of previous runs
+     * @return Map weight by feature key
+     */
+    public static Map<String, Double> weights(Map<String, Integer> steps, Properties history) {
+        double knownDuration = 0;
+        long knownSteps = 0;
+        for (Map.Entry<String, Integer> feature : steps.entrySet()) {
+            String duration = history.getProperty(feature.getKey());
+            if (duration != null) {
+                knownDuration += Double.parseDouble(duration);
+                knownSteps += feature.getValue();
+            }
+        }
+        double stepDuration = knownSteps == 0 ? DEFAULT_STEP_DURATION : knownDuration / knownSteps;
+
+        Map<String, Double> weights = new HashMap<>();
+        for (Map.Entry<String, Integer> feature : steps.entrySet()) {
+            String duration = history.getProperty(feature.getKey());
+            weights.put(feature.getKey(), duration != null ? Double.parseDouble(duration) : feature.getValue() * stepDuration);
+        }
+        return weights;
+    }
+
+    /**
+     * Bin pack features into shards: heaviest first, each one to the least loaded shard. Ties are broken by
+     * key and shard index, so every JVM gets the same result.
+     *
+     * @param weights weight by feature key
+     * @param total   number of shards
+     * @return Map shard by feature key
+     */
+    public static Map<String, Integer> assign(Map<String, Double> weights, int total) {
+        List<Map.Entry<String, Double>> features = new ArrayList<>(weights.entrySet());
+        features.sort((a, b) -> {
+            int byWeight = Double.compare(b.getValue(), a.getValue());
+            return byWeight != 0 ? byWeight : a.getKey().compareTo(b.getKey());
+        });
+
+        double[] loads = new double[total];
+        Map<String, Integer> shards = new TreeMap<>();
+        for (Map.Entry<String, Double> feature : features) {
+            int lightest = 0;
+            for (int shard = 1; shard < total; shard++) {
+                if (loads[shard] < loads[lightest]) {
+                    lightest = shard;
+                }
+            }
+            loads[lightest] += feature.getValue();
+            shards.put(feature.getKey(), lightest);
+        }
+        return shards;
+    }
+
+    /**
+     * Count the steps of every feature in a folder.
+     *
+     * @param featuresDir features folder
+     * @return Map step count by feature key
+     * @throws IOException
+     */
+    public static Map<String, Integer> countSteps(File featuresDir) throws IOException {
+        Map<String, Integer> steps = new HashMap<>();
+        if (!featuresDir.isDirectory()) {
+            return steps;
+        }
+        Path root = featuresDir.toPath();
+        for (Path feature : listFeatures(featuresDir)) {
+            String key = root.relativize(feature).toString().replace('\\', '/');
+            steps.put(key, countSteps(Files.readAllLines(feature, StandardCharsets.UTF_8)));
+        }
+        return steps;
+    }
+
+    /**
+     * Count the steps run by a feature. Scenario outline steps are counted once per example row.
+     *
+     * @param lines feature contents
+     * @return int
+     */
+    public static int countSteps(List<String> lines) {
+        int steps = 0;
+        int outlineSteps = 0;
+        boolean inOutline = false;
+        boolean inExamples = false;
+        boolean header = false;
+
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("Scenario Outline:")) {
+                inOutline = true;
+                inExamples = false;
+                outlineSteps = 0;
+            } else if (trimmed.startsWith("Scenario:") || trimmed.startsWith("Background:")) {
+                inOutline = false;
+                inExamples = false;
+            } else if (trimmed.startsWith("Examples:")) {
+                inExamples = true;
+                header = true;
+            } else if (STEP.matcher(trimmed).find()) {
+                if (inOutline) {
+                    outlineSteps++;
+                } else {
+                    steps++;
+                }
+            } else if (inOutline && inExamples && trimmed.startsWith("|")) {
+                if (header) {
+                    header = false;
+                } else {
+                    steps += outlineSteps;
+                }
+            }
+        }
+        return steps;
+    }
+
+    private static List<Path> listFeatures(File dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            return files.filter(file -> file.toString().endsWith(".feature")).sorted().collect(Collectors.toList());
+        }
+    }
+}
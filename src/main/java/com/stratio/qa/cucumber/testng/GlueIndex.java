@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import com.stratio.qa.processor.GlueIndexProcessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the glue and formatter indexes written by {@link GlueIndexProcessor} in every classpath entry.
+ * Set CUCUMBER_GLUE_INDEX to false to ignore them and scan the classpath.
+ */
+public final class GlueIndex {
+
+    private final Set<String> glue = new TreeSet<>();
+
+    private final Set<String> formatters = new TreeSet<>();
+
+    private final boolean available;
+
+    private final ClassLoader classLoader;
+
+    /**
+     * @param classLoader loader whose resources hold the indexes
+     * @throws IOException
+     */
+    public GlueIndex(ClassLoader classLoader) throws IOException {
+        this.classLoader = classLoader;
+        boolean found = read(classLoader, GlueIndexProcessor.GLUE_INDEX, glue);
+        found = read(classLoader, GlueIndexProcessor.FORMATTERS_INDEX, formatters) || found;
+        available = found && Boolean.valueOf(System.getProperty("CUCUMBER_GLUE_INDEX", "true"));
+    }
+
+    /**
+     * Checks if some index was found, so the classpath does not need to be scanned.
+     *
+     * @return boolean
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Keep the glue paths holding indexed step definitions, in them or in their subpackages. Paths not
+     * indexed are kept too when their folder exists in the classpath, as jars built without the processor.
+     *
+     * @param candidates glue paths, as classpath:a/b/c
+     * @return List
+     */
+    public List<String> filterGlue(List<String> candidates) {
+        List<String> existing = new ArrayList<>();
+        for (String candidate : candidates) {
+            for (String indexed : glue) {
+                if (indexed.equals(candidate) || indexed.startsWith(candidate + "/")) {
+                    existing.add(candidate);
+                    break;
+                }
+            }
+            if (!existing.contains(candidate) && classLoader.getResource(candidate.replaceFirst("^classpath:", "")) != null) {
+                existing.add(candidate);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Get the indexed formatters in a package or its subpackages.
+     *
+     * @param pkg package name, as a.b.c
+     * @return List of class names
+     */
+    public List<String> getFormatters(String pkg) {
+        List<String> inPackage = new ArrayList<>();
+        for (String formatter : formatters) {
+            if (formatter.startsWith(pkg + ".")) {
+                inPackage.add(formatter);
+            }
+        }
+        return inPackage;
+    }
+
+    private static boolean read(ClassLoader classLoader, String index, Set<String> entries) throws IOException {
+        boolean found = false;
+        Enumeration<URL> resources = classLoader.getResources(index);
+        while (resources.hasMoreElements()) {
+            found = true;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resources.nextElement().openStream(),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
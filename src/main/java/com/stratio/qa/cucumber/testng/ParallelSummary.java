@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import gherkin.formatter.model.Result;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scenario and step counts of a parallel run. Worker runtimes only see the scenarios they ran, so their own
+ * summaries are not printed: the results of every scenario are added here instead, and printed once as cucumber
+ * does at the end of a serial run.
+ */
+public class ParallelSummary {
+
+    /**
+     * Step statuses, from the least to the most severe. A scenario gets the most severe status of its steps and hooks.
+     */
+    private static final List<String> STATUSES = Arrays.asList("passed", "skipped", "pending", "undefined", "failed");
+
+    private static final List<String> PRINT_ORDER = Arrays.asList("failed", "skipped", "pending", "undefined", "passed");
+
+    private final Map<String, Integer> scenarios = new TreeMap<>();
+
+    private final Map<String, Integer> steps = new TreeMap<>();
+
+    private final Set<String> snippets = new LinkedHashSet<>();
+
+    private final long start = System.nanoTime();
+
+    /**
+     * Count a scenario that has been run.
+     *
+     * @param stepResults results of its steps
+     * @param hookResults results of its before and after hooks
+     */
+    public synchronized void addScenario(List<Result> stepResults, List<Result> hookResults) {
+        int worst = 0;
+        for (Result result : stepResults) {
+            steps.merge(result.getStatus(), 1, Integer::sum);
+            worst = Math.max(worst, STATUSES.indexOf(result.getStatus()));
+        }
+        for (Result result : hookResults) {
+            worst = Math.max(worst, STATUSES.indexOf(result.getStatus()));
+        }
+        scenarios.merge(STATUSES.get(worst), 1, Integer::sum);
+    }
+
+    /**
+     * Keep the snippets of undefined steps, once each.
+     *
+     * @param workerSnippets snippets of a worker runtime
+     */
+    public synchronized void addSnippets(Collection<String> workerSnippets) {
+        snippets.addAll(workerSnippets);
+    }
+
+    /**
+     * Print the scenario and step counts, the elapsed time and the snippets of undefined steps.
+     *
+     * @param out stream to print to
+     */
+    public synchronized void print(PrintStream out) {
+        out.println();
+        out.println(counts(scenarios, "Scenarios"));
+        out.println(counts(steps, "Steps"));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        out.println(String.format("%dm%d.%03ds", elapsed / 60000, elapsed / 1000 % 60, elapsed % 1000));
+        if (!snippets.isEmpty()) {
+            out.println();
+            out.println("You can implement missing steps with the snippets below:");
+            out.println();
+            for (String snippet : snippets) {
+                out.println(snippet);
+            }
+        }
+    }
+
+    private static String counts(Map<String, Integer> byStatus, String name) {
+        int total = byStatus.values().stream().mapToInt(Integer::intValue).sum();
+        StringBuilder line = new StringBuilder().append(total).append(" ").append(name);
+        String separator = " (";
+        for (String status : PRINT_ORDER) {
+            Integer count = byStatus.get(status);
+            if (count != null) {
+                line.append(separator).append(count).append(" ").append(status);
+                separator = ", ";
+            }
+        }
+        return total == 0 ? line.toString() : line.append(")").toString();
+    }
+}
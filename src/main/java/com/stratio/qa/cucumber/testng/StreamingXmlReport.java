@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * XML report written as it goes.
+ * <p>
+ * Elements are streamed to a part file as soon as they are complete, so only the element being built is
+ * kept in memory and a crashed run still leaves every finished element on disk. Elements wrapping the
+ * whole report, whose attributes hold totals, are written once at the end, when the part file is copied
+ * into the final report. The part file is only created once something is written to it.
+ */
+public class StreamingXmlReport {
+
+    private static final String ENCODING = "UTF-8";
+
+    private final File part;
+
+    private OutputStream out;
+
+    private XMLStreamWriter writer;
+
+    private int openElements = 0;
+
+    /**
+     * @param part file receiving elements as they are written
+     */
+    public StreamingXmlReport(File part) {
+        this.part = part;
+    }
+
+    /**
+     * Open an element, to be closed with {@link #end()}.
+     *
+     * @param name       element name
+     * @param attributes element attributes
+     * @throws XMLStreamException
+     */
+    public void start(String name, Map<String, String> attributes) throws XMLStreamException {
+        open();
+        writer.writeStartElement(name);
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            writer.writeAttribute(attribute.getKey(), attribute.getValue());
+        }
+        writer.writeCharacters("\n");
+        openElements++;
+    }
+
+    /**
+     * Close the last element opened with {@link #start(String, Map)}.
+     *
+     * @throws XMLStreamException
+     */
+    public void end() throws XMLStreamException {
+        if (openElements > 0) {
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            openElements--;
+        }
+    }
+
+    /**
+     * Write a complete element and flush it to disk.
+     *
+     * @param element element to be written, with its attributes and children
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    public void write(Element element) throws XMLStreamException, IOException {
+        open();
+        writeNode(element);
+        writer.writeCharacters("\n");
+        writer.flush();
+        out.flush();
+    }
+
+    /**
+     * Write the final report: the wrapping elements, outermost first, around every element written so far.
+     * The part file is removed afterwards.
+     *
+     * @param report     final report stream, closed once written
+     * @param names      wrapping element names
+     * @param attributes wrapping element attributes
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    public void finish(OutputStream report, List<String> names, List<Map<String, String>> attributes) throws XMLStreamException, IOException {
+        while (openElements > 0) {
+            end();
+        }
+        if (writer != null) {
+            writer.close();
+            out.close();
+        }
+
+        try (OutputStream target = report) {
+            XMLStreamWriter header = XMLOutputFactory.newInstance().createXMLStreamWriter(target, ENCODING);
+            header.writeStartDocument(ENCODING, "1.0");
+            header.writeCharacters("\n");
+            for (int i = 0; i < names.size(); i++) {
+                header.writeStartElement(names.get(i));
+                for (Map.Entry<String, String> attribute : attributes.get(i).entrySet()) {
+                    header.writeAttribute(attribute.getKey(), attribute.getValue());
+                }
+                header.writeCharacters("\n");
+            }
+            header.flush();
+
+            if (writer != null) {
+                Files.copy(part.toPath(), target);
+            }
+
+            StringBuilder trailer = new StringBuilder();
+            for (int i = names.size() - 1; i >= 0; i--) {
+                trailer.append("</").append(names.get(i)).append(">\n");
+            }
+            target.write(trailer.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.deleteIfExists(part.toPath());
+    }
+
+    private void open() throws XMLStreamException {
+        if (writer != null) {
+            return;
+        }
+        if (part.getParentFile() != null) {
+            part.getParentFile().mkdirs();
+        }
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(part));
+        } catch (IOException e) {
+            throw new XMLStreamException("Unable to create " + part, e);
+        }
+        writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, ENCODING);
+    }
+
+    private void writeNode(Node node) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writer.writeStartElement(node.getNodeName());
+                NamedNodeMap attributes = node.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    writer.writeAttribute(attributes.item(i).getNodeName(), attributes.item(i).getNodeValue());
+                }
+                NodeList children = node.getChildNodes();
+                for (int i = 0; i < children.getLength(); i++) {
+                    writeNode(children.item(i));
+                }
+                writer.writeEndElement();
+                break;
+            case Node.CDATA_SECTION_NODE:
+                // A CDATA section cannot hold its own end marker, so it is split around it
+                String[] sections = node.getNodeValue().split("]]>", -1);
+                for (int i = 0; i < sections.length; i++) {
+                    writer.writeCData((i > 0 ? ">" : "") + sections[i] + (i < sections.length - 1 ? "]]" : ""));
+                }
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            default:
+                break;
+        }
+    }
+}
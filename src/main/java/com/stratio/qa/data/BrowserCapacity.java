@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free selenium grid slots of each browser flavour, handed out to scenarios (Singleton).
+ * <p>
+ * Each browser_version gets as many permits as free slots it had when the grid was discovered (at least one).
+ * Runner instances built by {@link BrowsersDataProvider#availableBrowsersByCapacity} (one per browser) and their
+ * scenarios run in parallel, but a scenario only asks the grid for a session once it holds a permit for its
+ * browser, so sessions wait here instead of queueing on a busy node.
+ * <p>
+ * Settings:
+ * GRID_CAPACITY_AWARE (default false): enable to limit sessions to the free slots of each browser.
+ * GRID_SLOT_WAIT (default 600000): ms a scenario waits for a free slot before failing.
+ */
+public enum BrowserCapacity {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(BrowserCapacity.class);
+
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether sessions are limited to the free grid slots.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("GRID_CAPACITY_AWARE", "false"));
+    }
+
+    /**
+     * Get the free slots of every browser flavour, as found in the grid.
+     *
+     * @return Map of browser_version to free slots
+     */
+    public Map<String, Integer> freeSlots() {
+        Map<String, Integer> free = new HashMap<>();
+        for (GridBrowserDiscovery.Slot slot : GridBrowserDiscovery.INSTANCE.slots(Collections.<String, String>emptyMap())) {
+            free.merge(slot.getBrowser(), slot.isBusy() ? 0 : 1, Integer::sum);
+        }
+        return free;
+    }
+
+    /**
+     * Wait for a free slot of a browser.
+     *
+     * @param browser browser_version
+     * @throws InterruptedException
+     * @throws IllegalStateException if no slot gets free in GRID_SLOT_WAIT ms
+     */
+    public void acquire(String browser) throws InterruptedException {
+        Semaphore semaphore = permits.computeIfAbsent(browser,
+                b -> new Semaphore(Math.max(1, freeSlots().getOrDefault(b, 1)), true));
+        long wait = Long.parseLong(System.getProperty("GRID_SLOT_WAIT", "600000"));
+        logger.debug("Waiting for a free {} slot, {} available", browser, semaphore.availablePermits());
+        if (!semaphore.tryAcquire(wait, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("No free selenium grid slot for " + browser + " in " + wait + " ms");
+        }
+    }
+
+    /**
+     * Hand back the slot of a browser.
+     *
+     * @param browser browser_version
+     */
+    public void release(String browser) {
+        Semaphore semaphore = permits.get(browser);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+}
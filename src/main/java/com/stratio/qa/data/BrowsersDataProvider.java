@@ -17,20 +17,14 @@
 package com.stratio.qa.data;
 
 import com.google.common.collect.Lists;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.stratio.qa.utils.LocalBrowserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestContext;
 import org.testng.annotations.DataProvider;
 
-import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 public final class BrowsersDataProvider {
@@ -86,6 +80,34 @@ public final class BrowsersDataProvider {
         return buildIterator(browsers);
     }
 
+    /**
+     * Get unique browsers available in a selenium grid, one row each, those with more free slots first. Meant for
+     * factories run with parallel instances and GRID_CAPACITY_AWARE.
+     * <p>
+     * Every row runs all features, so a browser is never returned once per free slot. Its free slots are used by
+     * running scenarios in parallel within its instance (CUCUMBER_PARALLEL_SCENARIOS), and {@link BrowserCapacity}
+     * keeps those scenarios from asking for more sessions than there are slots.
+     *
+     * @param context
+     * @param testConstructor
+     * @return an iterator
+     * @throws Exception
+     */
+    @DataProvider(parallel = true)
+    public static Iterator<String[]> availableBrowsersByCapacity(ITestContext context, Constructor<?> testConstructor)
+            throws Exception {
+
+        if (LocalBrowserService.INSTANCE.isEnabled()) {
+            return buildIterator(gridBrowsers(new HashMap<String, String>()));
+        }
+        Map<String, Integer> free = BrowserCapacity.INSTANCE.freeSlots();
+        List<String> browsers = new ArrayList<String>(free.keySet());
+        browsers.sort(Comparator.comparing((String b) -> free.get(b)).reversed().thenComparing(b -> b));
+        LOGGER.info("Free selenium grid slots: {}", free);
+
+        return buildIterator(browsers);
+    }
+
     /**
      * Get the browsers available with "iOS" as platformName in a selenium grid.
      *
@@ -148,69 +170,15 @@ public final class BrowsersDataProvider {
     /**
      * Return available grid browsers applying filter defined by Map content.
      * Filter -> Regexp as: "filter.key()=filter.value(key)[,|}]"
+     * When SELENIUM_LOCAL is enabled the local browser is the only one, and it matches no filter.
      *
      * @param filter
      * @return browsers list
      */
     private static List<String> gridBrowsers(Map<String, String> filter) {
-
-        ArrayList<String> response = new ArrayList<String>();
-
-        String grid = System.getProperty("SELENIUM_GRID");
-
-        if (grid != null) {
-            grid = "http://" + grid + "/grid/console";
-            Document doc;
-            try {
-                doc = Jsoup.connect(grid).timeout(DEFAULT_TIMEOUT).get();
-            } catch (IOException e) {
-                LOGGER.debug("Exception on connecting to Selenium grid: {}", e.getMessage());
-                return response;
-            }
-
-            Elements slaves = (Elements) doc.select("div.proxy");
-
-            for (Element slave : slaves) {
-                String slaveStatus = slave.select("p.proxyname").first().text();
-                if (!slaveStatus.contains("Connection") && !slaveStatus.contains("Conexión")) {
-                    Integer iBusy = 0;
-                    Elements browserList = slave.select("div.content_detail").select("*[title]");
-                    Elements busyBrowserList = slave.select("div.content_detail").select("p > .busy");
-                    for (Element browserDetails : browserList) {
-                        if (browserDetails.attr("title").startsWith("{")) {
-                            boolean filterCheck = true;
-                            for (Map.Entry<String, String> f : filter.entrySet()) {
-                                String stringFilter = f.getKey() + "=" + f.getValue() + "[,|}]";
-                                Pattern patFilter = Pattern.compile(stringFilter);
-                                Matcher mFilter = patFilter.matcher(browserDetails.attr("title"));
-                                filterCheck = filterCheck & mFilter.find();
-                            }
-                            if (filterCheck) {
-                                Pattern pat = Pattern.compile("browserName=(.*?),.*?(version=(.*?)[,|}])");
-                                Matcher m = pat.matcher(browserDetails.attr("title"));
-                                while (m.find()) {
-                                    response.add(m.group(1) + "_" + m.group(3));
-                                }
-                            }
-                        } else {
-                            String version = busyBrowserList.get(iBusy).parent().text();
-                            String browser = busyBrowserList.get(iBusy).text();
-                            version = version.substring(2);
-                            version = version.replace(browser, "");
-                            String browserSrc = busyBrowserList.get(iBusy).select("img").attr("src");
-                            if (!browserSrc.equals("")) {
-                                browser = browserSrc.substring(browserSrc.lastIndexOf('/') + 1, browserSrc.length()
-                                        - DEFAULT_LESS_LENGTH);
-                            }
-                            response.add(browser + "_" + version);
-                            iBusy++;
-                        }
-                    }
-                }
-            }
+        if (LocalBrowserService.INSTANCE.isEnabled()) {
+            return filter.isEmpty() ? Lists.newArrayList(LocalBrowserService.BROWSER) : new ArrayList<String>();
         }
-        // Sort response
-        Collections.sort(response);
-        return response;
+        return GridBrowserDiscovery.INSTANCE.browsers(filter);
     }
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.data;
+
+import com.jayway.jsonpath.JsonPath;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inventory of the browser slots of the selenium grid set by SELENIUM_GRID, shared by the data providers of
+ * every runner class (Singleton).
+ * <p>
+ * The hub is asked once and its answer kept for GRID_DISCOVERY_TTL ms (default 300000). The JSON status
+ * endpoint (/status) is preferred, falling back to scraping the /grid/console page of older hubs.
+ */
+public enum GridBrowserDiscovery {
+    INSTANCE;
+
+    /**
+     * Version of the browsers whose slots do not state one, as in chrome_any. Sessions for them do not ask
+     * for any version.
+     */
+    public static final String ANY_VERSION = "any";
+
+    private static final Pattern BROWSER = Pattern.compile("browserName=(.*?),.*?(version=(.*?)[,|}])");
+
+    private final Logger logger = LoggerFactory.getLogger(GridBrowserDiscovery.class);
+
+    private final Map<String, Pattern> filters = new ConcurrentHashMap<>();
+
+    private List<Slot> inventory = null;
+
+    private String inventoryGrid = null;
+
+    private long fetchedAt = 0;
+
+    /**
+     * Get the browsers of the grid matching a filter, one per slot, sorted.
+     * Filter -> Regexp as: "filter.key()=filter.value(key)[,|}]"
+     *
+     * @param filter capability regexps, by capability name
+     * @return List of browser_version
+     */
+    public List<String> browsers(Map<String, String> filter) {
+        List<String> response = new ArrayList<>();
+        for (Slot slot : slots(filter)) {
+            response.add(slot.getBrowser());
+        }
+        Collections.sort(response);
+        return response;
+    }
+
+    /**
+     * Get the slots of the grid matching a filter. Slots whose capabilities are unknown, as busy slots in the
+     * grid console, are not filtered out.
+     *
+     * @param filter capability regexps, by capability name
+     * @return List of slots
+     */
+    public List<Slot> slots(Map<String, String> filter) {
+        List<Slot> matching = new ArrayList<>();
+        for (Slot slot : getInventory()) {
+            boolean filterCheck = true;
+            if (slot.getCapabilities() != null) {
+                for (Map.Entry<String, String> f : filter.entrySet()) {
+                    Pattern patFilter = filters.computeIfAbsent(f.getKey() + "=" + f.getValue() + "[,|}]", Pattern::compile);
+                    filterCheck = filterCheck && patFilter.matcher(slot.getCapabilities()).find();
+                }
+            }
+            if (filterCheck) {
+                matching.add(slot);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Forget the inventory, so the hub is asked again on next use.
+     */
+    public synchronized void invalidate() {
+        inventory = null;
+    }
+
+    private synchronized List<Slot> getInventory() {
+        String grid = System.getProperty("SELENIUM_GRID");
+        if (grid == null) {
+            return Collections.emptyList();
+        }
+        long ttl = Long.parseLong(System.getProperty("GRID_DISCOVERY_TTL", "300000"));
+        if (inventory == null || !grid.equals(inventoryGrid) || System.currentTimeMillis() - fetchedAt > ttl) {
+            List<Slot> slots = discover("http://" + grid);
+            if (slots == null) {
+                // not cached, next data provider tries again
+                return Collections.emptyList();
+            }
+            inventory = Collections.unmodifiableList(slots);
+            inventoryGrid = grid;
+            fetchedAt = System.currentTimeMillis();
+            logger.debug("Selenium grid {} has {} browser slots", grid, inventory.size());
+        }
+        return inventory;
+    }
+
+    private List<Slot> discover(String hub) {
+        try {
+            String status = Jsoup.connect(hub + "/status").ignoreContentType(true)
+                    .timeout(BrowsersDataProvider.DEFAULT_TIMEOUT).execute().body();
+            List<Slot> slots = parseStatus(status);
+            if (slots != null) {
+                return slots;
+            }
+        } catch (Exception e) {
+            logger.debug("Selenium grid JSON status not available: {}", e.getMessage());
+        }
+        try {
+            return parseConsole(Jsoup.connect(hub + "/grid/console").timeout(BrowsersDataProvider.DEFAULT_TIMEOUT).get());
+        } catch (IOException e) {
+            logger.debug("Exception on connecting to Selenium grid: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read the slots of a hub JSON status, as served by selenium 4 grids.
+     *
+     * @param json status
+     * @return List of slots, null if the status has no node list
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Slot> parseStatus(String json) {
+        List<Map<String, Object>> nodes;
+        try {
+            nodes = JsonPath.read(json, "$.value.nodes");
+        } catch (Exception e) {
+            return null;
+        }
+        List<Slot> slots = new ArrayList<>();
+        for (Map<String, Object> node : nodes) {
+            if (!"UP".equals(node.get("availability"))) {
+                continue;
+            }
+            for (Map<String, Object> slot : (List<Map<String, Object>>) node.get("slots")) {
+                Map<String, Object> stereotype = (Map<String, Object>) slot.get("stereotype");
+                Map<String, Object> capabilities = new LinkedHashMap<>();
+                capabilities.put("browserName", stereotype.get("browserName"));
+                capabilities.putAll(stereotype);
+                Object version = stereotype.getOrDefault("browserVersion", stereotype.get("version"));
+                if (version != null) {
+                    capabilities.put("version", version);
+                }
+                StringBuilder title = new StringBuilder("{");
+                for (Map.Entry<String, Object> capability : capabilities.entrySet()) {
+                    title.append(title.length() > 1 ? ", " : "").append(capability.getKey()).append("=").append(capability.getValue());
+                }
+                title.append("}");
+                slots.add(new Slot(String.valueOf(node.get("nodeId")), browser(stereotype.get("browserName"), version),
+                        title.toString(), slot.get("session") != null));
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Read the slots of a hub console page, as served by selenium 2 and 3 grids.
+     *
+     * @param doc console page
+     * @return List of slots
+     */
+    public static List<Slot> parseConsole(Document doc) {
+        List<Slot> slots = new ArrayList<>();
+        Elements proxies = doc.select("div.proxy");
+
+        for (Element proxy : proxies) {
+            String proxyStatus = proxy.select("p.proxyname").first().text();
+            if (!proxyStatus.contains("Connection") && !proxyStatus.contains("Conexión")) {
+                Integer iBusy = 0;
+                Elements browserList = proxy.select("div.content_detail").select("*[title]");
+                Elements busyBrowserList = proxy.select("div.content_detail").select("p > .busy");
+                for (Element browserDetails : browserList) {
+                    String title = browserDetails.attr("title");
+                    if (title.startsWith("{")) {
+                        Matcher m = BROWSER.matcher(title);
+                        while (m.find()) {
+                            slots.add(new Slot(proxyStatus, browser(m.group(1), m.group(3)), title, false));
+                        }
+                    } else {
+                        String version = busyBrowserList.get(iBusy).parent().text();
+                        String browser = busyBrowserList.get(iBusy).text();
+                        version = version.substring(2);
+                        version = version.replace(browser, "");
+                        String browserSrc = busyBrowserList.get(iBusy).select("img").attr("src");
+                        if (!browserSrc.equals("")) {
+                            browser = browserSrc.substring(browserSrc.lastIndexOf('/') + 1, browserSrc.length()
+                                    - BrowsersDataProvider.DEFAULT_LESS_LENGTH);
+                        }
+                        slots.add(new Slot(proxyStatus, browser + "_" + version, null, true));
+                        iBusy++;
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static String browser(Object name, Object version) {
+        if (version == null || String.valueOf(version).trim().isEmpty()) {
+            return name + "_" + ANY_VERSION;
+        }
+        return name + "_" + version;
+    }
+
+    /**
+     * A browser slot of a grid node.
+     */
+    public static final class Slot {
+
+        private final String node;
+
+        private final String browser;
+
+        private final String capabilities;
+
+        private final boolean busy;
+
+        public Slot(String node, String browser, String capabilities, boolean busy) {
+            this.node = node;
+            this.browser = browser;
+            this.capabilities = capabilities;
+            this.busy = busy;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        /**
+         * Get the browser name and version, as chrome_58, or chrome_any if the slot states no version.
+         *
+         * @return String
+         */
+        public String getBrowser() {
+            return browser;
+        }
+
+        /**
+         * Get the slot capabilities, as {browserName=chrome, version=58}.
+         *
+         * @return String, null if unknown
+         */
+        public String getCapabilities() {
+            return capabilities;
+        }
+
+        public boolean isBusy() {
+            return busy;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor writing, at compile time, the index read by CucumberRunner instead of scanning the
+ * classpath:
+ * <p>
+ * META-INF/stratio-qa/glue.idx: packages holding cucumber step definitions or hooks, as classpath:a/b/c.
+ * META-INF/stratio-qa/formatters.idx: concrete classes implementing ICucumberFormatter.
+ * <p>
+ * It is registered as a service, so every project compiling against this library indexes its own glue.
+ */
+@SupportedAnnotationTypes("*")
+public class GlueIndexProcessor extends AbstractProcessor {
+
+    public static final String GLUE_INDEX = "META-INF/stratio-qa/glue.idx";
+
+    public static final String FORMATTERS_INDEX = "META-INF/stratio-qa/formatters.idx";
+
+    private static final String CUCUMBER_ANNOTATIONS = "cucumber.api.java.";
+
+    private static final String FORMATTER_INTERFACE = "com.stratio.qa.cucumber.testng.ICucumberFormatter";
+
+    private final Set<String> glue = new TreeSet<>();
+
+    private final Set<String> formatters = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write(GLUE_INDEX, glue);
+            write(FORMATTERS_INDEX, formatters);
+            return false;
+        }
+
+        TypeElement formatterType = processingEnv.getElementUtils().getTypeElement(FORMATTER_INTERFACE);
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement clazz = (TypeElement) element;
+            if (hasStepDefinitions(clazz)) {
+                String pkg = processingEnv.getElementUtils().getPackageOf(clazz).getQualifiedName().toString();
+                glue.add("classpath:" + pkg.replace('.', '/'));
+            }
+            if (formatterType != null && !clazz.getModifiers().contains(Modifier.ABSTRACT)) {
+                TypeMirror formatter = processingEnv.getTypeUtils().erasure(formatterType.asType());
+                if (processingEnv.getTypeUtils().isAssignable(clazz.asType(), formatter)) {
+                    formatters.add(clazz.getQualifiedName().toString());
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasStepDefinitions(TypeElement clazz) {
+        for (Element member : clazz.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD) {
+                for (AnnotationMirror annotation : member.getAnnotationMirrors()) {
+                    if (annotation.getAnnotationType().toString().startsWith(CUCUMBER_ANNOTATIONS)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void write(String index, Set<String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", index);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to write " + index + ": " + e.getMessage());
+        }
+    }
+}
@@ -26,8 +26,11 @@ import com.jayway.jsonpath.spi.json.GsonJsonProvider;
 import com.jayway.jsonpath.spi.mapper.GsonMappingProvider;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.ning.http.client.AsyncCompletionHandlerBase;
+import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
+import com.ning.http.client.ListenableFuture;
 import com.ning.http.client.Realm;
 import com.ning.http.client.Realm.AuthScheme;
 import com.ning.http.client.Response;
@@ -36,7 +39,6 @@ import com.stratio.qa.conditions.Conditions;
 import com.stratio.qa.utils.*;
 import cucumber.api.DataTable;
 import org.apache.commons.collections.IteratorUtils;
-import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.Condition;
 import org.hjson.JsonArray;
@@ -53,14 +55,16 @@ import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -69,8 +73,6 @@ import static org.testng.Assert.fail;
 
 public class CommonG {
 
-    private static final long DEFAULT_CURRENT_TIME = 1000L;
-
     private static final int DEFAULT_SLEEP_TIME = 1500;
 
     private final Logger logger = LoggerFactory.getLogger(ThreadProperty.get("class"));
@@ -83,10 +85,18 @@ public class CommonG {
 
     private String parentWindow = "";
 
+    private final List<PageTimings> pageTimings = new ArrayList<>();
+
     private AsyncHttpClient client;
 
+    private boolean pooledClient = false;
+
     private HttpResponse response;
 
+    private TimedResponseHandler lastRequestTimer;
+
+    private Callable<Future<Response>> lastRequest;
+
     private List<Cookie> cookies = new ArrayList<Cookie>();
 
     private ResultSet previousCassandraResults;
@@ -316,6 +326,38 @@ public class CommonG {
         this.driver = driver;
     }
 
+    /**
+     * Get the timings of the pages browsed in this scenario, the last one at the end.
+     *
+     * @return List<PageTimings>
+     */
+    public List<PageTimings> getPageTimings() {
+        return pageTimings;
+    }
+
+    /**
+     * Collect the navigation and resource timings of the current page, unless PAGE_TIMINGS is disabled. Browsers
+     * not reporting timings are skipped.
+     *
+     * @throws Exception
+     */
+    public void capturePageTimings() throws Exception {
+        if (!PageTimings.isEnabled()) {
+            return;
+        }
+        try {
+            PageTimings timings = PageTimings.collect(this.getDriver());
+            if (timings == null) {
+                logger.debug("Browser does not report navigation timings");
+            } else {
+                logger.debug("{}", timings);
+                pageTimings.add(timings);
+            }
+        } catch (WebDriverException e) {
+            logger.debug("Page timings not available: {}", e.getMessage());
+        }
+    }
+
     /**
      * Get the browser name.
      *
@@ -378,6 +420,26 @@ public class CommonG {
         return wel;
     }
 
+    /**
+     * Get a lookup over the current selenium session, to resolve many locators at once and to wait for
+     * elements with the implicit wait switched off.
+     *
+     * @return ElementLookup
+     */
+    public ElementLookup getElementLookup() {
+        return new ElementLookup(this.getDriver(), HookGSpec.IMPLICITLY_WAIT * 1000L);
+    }
+
+    /**
+     * Looks for webelements matching several locators, in one round-trip to the browser.
+     *
+     * @param locators pairs of method (id, name, class, xpath or css) and locator value
+     * @return List with the webelements found for each locator, in the same order
+     */
+    public List<List<WebElement>> locateElements(List<String[]> locators) {
+        return getElementLookup().locateAll(locators);
+    }
+
      /**
      * Capture a snapshot or an evidence in the driver
      *
@@ -441,26 +503,11 @@ public class CommonG {
 
             if (!outputFile.equals("")) {
                 String source = ((RemoteWebDriver) driver).getPageSource();
-
-                File fout = new File(outputFile);
-                boolean dirs = fout.getParentFile().mkdirs();
-
-                FileOutputStream fos;
-                try {
-                    fos = new FileOutputStream(fout, true);
-                    Writer out = new OutputStreamWriter(fos, "UTF8");
-                    PrintWriter writer = new PrintWriter(out, false);
-                    writer.append(source);
-                    writer.close();
-                    out.close();
-                } catch (IOException e) {
-                    logger.error("Exception on evidence capture", e);
-                }
+                outputFile = EvidenceWriter.INSTANCE.writeText(outputFile, source);
             }
 
         } else if ("screenCapture".equals(type)) {
             outputFile = outputFile + ".png";
-            File file = null;
             driver.switchTo().defaultContent();
             ((Locatable) driver.findElement(By.tagName("body")))
                     .getCoordinates().inViewPort();
@@ -471,15 +518,10 @@ public class CommonG {
                 actions.keyDown(Keys.CONTROL).sendKeys(Keys.HOME).perform();
                 actions.keyUp(Keys.CONTROL).perform();
 
-                file = chromeFullScreenCapture(driver);
+                chromeFullScreenCapture(driver, outputFile);
             } else {
-                file = ((TakesScreenshot) driver)
-                        .getScreenshotAs(OutputType.FILE);
-            }
-            try {
-                FileUtils.copyFile(file, new File(outputFile));
-            } catch (IOException e) {
-                logger.error("Exception on copying browser screen capture", e);
+                EvidenceWriter.INSTANCE.write(outputFile, ((TakesScreenshot) driver)
+                        .getScreenshotAs(OutputType.BYTES));
             }
         }
 
@@ -487,67 +529,10 @@ public class CommonG {
 
     }
 
-    private File adjustLastCapture(Integer newTrailingImageHeight,
-                                   List<File> capture) {
-        // cuts last image just in case it dupes information
-        Integer finalHeight = 0;
-        Integer finalWidth = 0;
-
-        File trailingImage = capture.get(capture.size() - 1);
-        capture.remove(capture.size() - 1);
-
-        BufferedImage oldTrailingImage;
-        File temp = null;
-        try {
-            oldTrailingImage = ImageIO.read(trailingImage);
-            BufferedImage newTrailingImage = new BufferedImage(
-                    oldTrailingImage.getWidth(), oldTrailingImage.getHeight()
-                    - newTrailingImageHeight,
-                    BufferedImage.TYPE_INT_RGB);
-
-            newTrailingImage.createGraphics().drawImage(oldTrailingImage, 0,
-                    0 - newTrailingImageHeight, null);
-
-            File newTrailingImageF = File.createTempFile("tmpnewTrailingImage",
-                    ".png");
-            newTrailingImageF.deleteOnExit();
-
-            ImageIO.write(newTrailingImage, "png", newTrailingImageF);
-
-            capture.add(newTrailingImageF);
-
-            finalWidth = ImageIO.read(capture.get(0)).getWidth();
-            for (File cap : capture) {
-                finalHeight += ImageIO.read(cap).getHeight();
-            }
-
-            BufferedImage img = new BufferedImage(finalWidth, finalHeight,
-                    BufferedImage.TYPE_INT_RGB);
-
-            Integer y = 0;
-            BufferedImage tmpImg = null;
-            for (File cap : capture) {
-                tmpImg = ImageIO.read(cap);
-                img.createGraphics().drawImage(tmpImg, 0, y, null);
-                y += tmpImg.getHeight();
-            }
-
-            long ts = System.currentTimeMillis() / DEFAULT_CURRENT_TIME;
-
-            temp = File.createTempFile("chromecap" + Long.toString(ts), ".png");
-            temp.deleteOnExit();
-            ImageIO.write(img, "png", temp);
-
-        } catch (IOException e) {
-            logger.error("Cant read image", e);
-        }
-        return temp;
-    }
-
-    private File chromeFullScreenCapture(WebDriver driver) {
+    private void chromeFullScreenCapture(WebDriver driver, String outputFile) {
         driver.switchTo().defaultContent();
         // scroll loop n times to get the whole page if browser is chrome
-        ArrayList<File> capture = new ArrayList<File>();
+        List<byte[]> capture = new ArrayList<byte[]>();
 
         Boolean atBottom = false;
         Integer windowSize = ((Long) ((JavascriptExecutor) driver)
@@ -562,7 +547,7 @@ public class CommonG {
 
                 Thread.sleep(DEFAULT_SLEEP_TIME);
                 capture.add(((TakesScreenshot) driver)
-                        .getScreenshotAs(OutputType.FILE));
+                        .getScreenshotAs(OutputType.BYTES));
 
                 ((JavascriptExecutor) driver).executeScript("if(window.screen)"
                         + " {window.scrollBy(0," + windowSize + ");};");
@@ -578,7 +563,9 @@ public class CommonG {
         }
 
         newTrailingImageHeight = accuScroll - getDocumentHeight(driver);
-        return adjustLastCapture(newTrailingImageHeight, capture);
+        // cuts last image just in case it dupes information. Tiles are stitched by the evidence writer
+        int trailingImageHeight = newTrailingImageHeight;
+        EvidenceWriter.INSTANCE.write(outputFile, out -> PngStitcher.stitch(capture, trailingImageHeight, out));
     }
 
     private Integer getDocumentHeight(WebDriver driver) {
@@ -628,16 +615,68 @@ public class CommonG {
         this.client = client;
     }
 
+    /**
+     * Checks if the REST client is taken from the suite wide {@link RestClientPool}.
+     *
+     * @return boolean
+     */
+    public boolean isPooledClient() {
+        return pooledClient;
+    }
+
+    /**
+     * Set whether the REST client is taken from the suite wide {@link RestClientPool}.
+     *
+     * @param pooledClient
+     */
+    public void setPooledClient(boolean pooledClient) {
+        this.pooledClient = pooledClient;
+    }
+
     public HttpResponse getResponse() {
         return response;
     }
 
     public void setResponse(String endpoint, Response response) throws IOException {
 
+        if (this.response != null && this.response.getBodyFile() != null) {
+            this.response.getBodyFile().delete();
+        }
+
         Integer statusCode = response.getStatusCode();
         String httpResponse = response.getResponseBody();
         List<Cookie> cookies = response.getCookies();
         this.response = new HttpResponse(statusCode, httpResponse, cookies);
+        this.response.setResponseBytes(response.getResponseBodyAsBytes().length);
+        if (this.lastRequestTimer != null) {
+            this.lastRequestTimer.fill(this.response);
+            this.lastRequestTimer = null;
+        }
+    }
+
+    /**
+     * Delete the body files of the last response and of a request whose response was never set, if any.
+     *
+     * @throws IOException
+     */
+    public void discardResponseBody() throws IOException {
+        if (this.lastRequestTimer != null) {
+            this.lastRequestTimer.discardBody();
+            this.lastRequestTimer = null;
+        }
+        if (this.response != null && this.response.getBodyFile() != null) {
+            this.response.getBodyFile().delete();
+        }
+    }
+
+    /**
+     * Returns a call repeating the last request built by generateRequest, or null if there is none. Repeated
+     * requests are not recorded as the last one.
+     *
+     * @return Callable
+     */
+    public Callable<Future<Response>> getLastRequest() {
+        return lastRequest;
     }
 
     /**
@@ -649,17 +688,34 @@ public class CommonG {
      * @throws Exception
      */
     public String retrieveData(String baseData, String type) {
-        String result;
+        RetrievedDataCache.Entry entry = retrieveEntry(baseData);
+        if (entry == null) {
+            return "ERR! File not found: " + baseData;
+        }
+        return "json".equals(type) ? entry.getJson() : entry.getText();
+    }
+
+    /**
+     * Returns the cached contents of a file, reading and caching them on first use.
+     *
+     * @param baseData path to file to be read
+     * @return RetrievedDataCache.Entry, null if the file does not exist
+     */
+    private RetrievedDataCache.Entry retrieveEntry(String baseData) {
+        RetrievedDataCache.Entry cached = RetrievedDataCache.INSTANCE.get(baseData);
+        if (cached != null) {
+            return cached;
+        }
 
         InputStream stream = getClass().getClassLoader().getResourceAsStream(baseData);
 
         Writer writer = new StringWriter();
-        char[] buffer = new char[1024];
+        char[] buffer = new char[8192];
         Reader reader;
 
         if (stream == null) {
             this.getLogger().error("File does not exist: {}", baseData);
-            return "ERR! File not found: " + baseData;
+            return null;
         }
 
         try {
@@ -680,14 +736,7 @@ public class CommonG {
         String text = writer.toString();
 
         String std = text.replace("\r", "").replace("\n", ""); // make sure we have unix style text regardless of the input
-
-
-        if ("json".equals(type)) {
-            result = JsonValue.readHjson(std).asObject().toString();
-        } else {
-            result = std;
-        }
-        return result;
+        return RetrievedDataCache.INSTANCE.put(baseData, std);
     }
 
 
@@ -767,144 +816,10 @@ public class CommonG {
      */
     public String modifyData(String data, String type, DataTable modifications) throws Exception {
         String modifiedData = data;
-        String typeJsonObject = "";
-        String nullValue = "";
-
-        JSONArray jArray;
-        JSONObject jObject;
-        Double jNumber;
-        Boolean jBoolean;
 
         if ("json".equals(type)) {
-            LinkedHashMap jsonAsMap = new LinkedHashMap();
-            for (int i = 0; i < modifications.raw().size(); i++) {
-                String composeKey = modifications.raw().get(i).get(0);
-                String operation = modifications.raw().get(i).get(1);
-                String newValue = modifications.raw().get(i).get(2);
-
-                if (modifications.raw().get(0).size() == 4) {
-                    typeJsonObject = modifications.raw().get(i).get(3);
-                }
-
-                JsonObject object = new JsonObject(JsonValue.readHjson(modifiedData).asObject());
-                removeNulls(object);
-                modifiedData = JsonValue.readHjson(object.toString()).toString();
-
-                switch (operation.toUpperCase()) {
-                    case "DELETE":
-                        jsonAsMap = JsonPath.parse(modifiedData).delete(composeKey).json();
-                        break;
-                    case "ADD":
-                        // Get the last key
-                        String newKey;
-                        String newComposeKey;
-                        if (composeKey.contains(".")) {
-                            newKey = composeKey.substring(composeKey.lastIndexOf('.') + 1);
-                            newComposeKey = composeKey.substring(0, composeKey.lastIndexOf('.'));
-                        } else {
-                            newKey = composeKey;
-                            newComposeKey = "$";
-                        }
-                        jsonAsMap = JsonPath.parse(modifiedData).put(newComposeKey, newKey, newValue).json();
-                        break;
-                    case "UPDATE":
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
-                        break;
-                    case "APPEND":
-                        String appendValue = JsonPath.parse(modifiedData).read(composeKey);
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, appendValue + newValue).json();
-                        break;
-                    case "PREPEND":
-                        String prependValue = JsonPath.parse(modifiedData).read(composeKey);
-                        jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue + prependValue).json();
-                        break;
-                    case "REPLACE":
-                        if ("array".equals(typeJsonObject)) {
-                            jArray = new JSONArray();
-                            if (!"[]".equals(newValue)) {
-                                jArray = new JSONArray(newValue);
-                            }
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jArray).json();
-                            break;
-                        } else if ("object".equals(typeJsonObject)) {
-                            jObject = new JSONObject();
-                            if (!"{}".equals(newValue)) {
-                                jObject = new JSONObject(newValue);
-                            }
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jObject).json();
-                            break;
-                        } else if ("string".equals(typeJsonObject)) {
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
-                            break;
-
-                        } else if ("number".equals(typeJsonObject)) {
-                            jNumber = new Double(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jNumber).json();
-                            break;
-
-                        } else if ("boolean".equals(typeJsonObject)) {
-                            jBoolean = new Boolean(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, jBoolean).json();
-                            break;
-
-                        } else if ("null".equals(typeJsonObject)) {
-                            nullValue = JsonPath.parse(modifiedData).set(composeKey, null).jsonString();
-                            break;
-
-                        } else {
-                            String replaceValue = JsonPath.parse(modifiedData).read(composeKey);
-                            String toBeReplaced = newValue.split("->")[0];
-                            String replacement = newValue.split("->")[1];
-                            newValue = replaceValue.replace(toBeReplaced, replacement);
-                            jsonAsMap = JsonPath.parse(modifiedData).set(composeKey, newValue).json();
-                            break;
-                        }
-                    case "ADDTO":
-                        if ("array".equals(typeJsonObject)) {
-                            jArray = new JSONArray();
-                            if (!"[]".equals(newValue)) {
-                                jArray = new JSONArray(newValue);
-                            }
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jArray).json();
-                            break;
-                        } else if ("object".equals(typeJsonObject)) {
-                            jObject = new JSONObject();
-                            if (!"{}".equals(newValue)) {
-                                jObject = new JSONObject(newValue);
-                            }
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jObject).json();
-                            break;
-                        } else if ("string".equals(typeJsonObject)) {
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, newValue).json();
-                            break;
-                        } else if ("number".equals(typeJsonObject)) {
-                            jNumber = new Double(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jNumber).json();
-                            break;
-                        } else if ("boolean".equals(typeJsonObject)) {
-                            jBoolean = new Boolean(newValue);
-                            jsonAsMap = JsonPath.parse(modifiedData).add(composeKey, jBoolean).json();
-                            break;
-                        } else if ("null".equals(typeJsonObject)) {
-                            nullValue = JsonPath.parse(modifiedData).add(composeKey, null).jsonString();
-                            break;
-                        } else {
-                            // TO-DO: understand  newValue.split("->")[0];  and  newValue.split("->")[1];
-                            break;
-                        }
-                    case "HEADER":
-                        this.headers.put(composeKey, newValue);
-                        break;
-                    default:
-                        throw new Exception("Modification type does not exist: " + operation);
-                }
-
-                modifiedData = new JSONObject(jsonAsMap).toString();
-                if (!"".equals(nullValue)) {
-                    modifiedData = nullValue;
-                }
-                modifiedData = modifiedData.replaceAll("\"TO_BE_NULL\"", "null");
-            }
+            // Parse once, apply every modification over the same tree and serialize once
+            modifiedData = modifyJson(JsonPath.parse(JsonValue.readHjson(modifiedData).asObject().toString()), modifications);
         } else {
             for (int i = 0; i < modifications.raw().size(); i++) {
                 String value = modifications.raw().get(i).get(0);
@@ -937,6 +852,167 @@ public class CommonG {
         return modifiedData;
     }
 
+    /**
+     * Returns the information contained in a file, modified as in {@link #modifyData}. For json files, a copy of
+     * the cached tree of the file is modified instead of parsing the file again.
+     *
+     * @param baseData      path to file to be read
+     * @param type          type of information, it can be: json|string
+     * @param modifications modifications to apply, as in {@link #modifyData}
+     * @return String
+     * @throws Exception
+     */
+    public String modifyRetrievedData(String baseData, String type, DataTable modifications) throws Exception {
+        RetrievedDataCache.Entry entry = retrieveEntry(baseData);
+        if (!"json".equals(type) || entry == null) {
+            return modifyData(retrieveData(baseData, type), type, modifications);
+        }
+        return modifyJson(JsonPath.parse(entry.copyTree()), modifications);
+    }
+
+    /**
+     * Applies every modification over a parsed json document and serializes it.
+     *
+     * @param document      parsed json document, modified in place
+     * @param modifications modifications to apply, as in {@link #modifyData}
+     * @return String
+     * @throws Exception
+     */
+    private String modifyJson(DocumentContext document, DataTable modifications) throws Exception {
+        String typeJsonObject = "";
+
+        for (int i = 0; i < modifications.raw().size(); i++) {
+            String composeKey = modifications.raw().get(i).get(0);
+            String operation = modifications.raw().get(i).get(1);
+            String newValue = modifications.raw().get(i).get(2);
+
+            if (modifications.raw().get(0).size() == 4) {
+                typeJsonObject = modifications.raw().get(i).get(3);
+            }
+
+            switch (operation.toUpperCase()) {
+                case "DELETE":
+                    document.delete(composeKey);
+                    break;
+                case "ADD":
+                    // Get the last key
+                    String newKey;
+                    String newComposeKey;
+                    if (composeKey.contains(".")) {
+                        newKey = composeKey.substring(composeKey.lastIndexOf('.') + 1);
+                        newComposeKey = composeKey.substring(0, composeKey.lastIndexOf('.'));
+                    } else {
+                        newKey = composeKey;
+                        newComposeKey = "$";
+                    }
+                    document.put(newComposeKey, newKey, newValue);
+                    break;
+                case "UPDATE":
+                    document.set(composeKey, newValue);
+                    break;
+                case "APPEND":
+                    String appendValue = document.read(composeKey);
+                    document.set(composeKey, appendValue + newValue);
+                    break;
+                case "PREPEND":
+                    String prependValue = document.read(composeKey);
+                    document.set(composeKey, newValue + prependValue);
+                    break;
+                case "REPLACE":
+                    if (isJsonObjectType(typeJsonObject)) {
+                        document.set(composeKey, toJsonObjectType(newValue, typeJsonObject));
+                    } else {
+                        String replaceValue = document.read(composeKey);
+                        String toBeReplaced = newValue.split("->")[0];
+                        String replacement = newValue.split("->")[1];
+                        document.set(composeKey, replaceValue.replace(toBeReplaced, replacement));
+                    }
+                    break;
+                case "ADDTO":
+                    if (isJsonObjectType(typeJsonObject)) {
+                        document.add(composeKey, toJsonObjectType(newValue, typeJsonObject));
+                    }
+                    // TO-DO: understand  newValue.split("->")[0];  and  newValue.split("->")[1];
+                    break;
+                case "HEADER":
+                    this.headers.put(composeKey, newValue);
+                    break;
+                default:
+                    throw new Exception("Modification type does not exist: " + operation);
+            }
+        }
+
+        // org.json drops null values, so they are kept as "TO_BE_NULL" while serializing
+        Map<String, Object> jsonAsMap = document.json();
+        markNulls(jsonAsMap);
+        return new JSONObject(jsonAsMap).toString().replaceAll("\"TO_BE_NULL\"", "null");
+    }
+
+    /**
+     * Checks if a modification type is one of the json types handled by REPLACE and ADDTO.
+     *
+     * @param typeJsonObject array|object|string|number|boolean|null
+     * @return boolean
+     */
+    private boolean isJsonObjectType(String typeJsonObject) {
+        switch (typeJsonObject) {
+            case "array":
+            case "object":
+            case "string":
+            case "number":
+            case "boolean":
+            case "null":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Converts a modification value to the json type requested, as a value of the tree modified by JsonPath.
+     *
+     * @param newValue       value as written in the modifications table
+     * @param typeJsonObject array|object|string|number|boolean|null
+     * @return Object
+     */
+    private Object toJsonObjectType(String newValue, String typeJsonObject) {
+        switch (typeJsonObject) {
+            case "array":
+                return "[]".equals(newValue) ? new ArrayList<Object>() : Configuration.defaultConfiguration().jsonProvider().parse(newValue);
+            case "object":
+                return "{}".equals(newValue) ? new LinkedHashMap<String, Object>() : Configuration.defaultConfiguration().jsonProvider().parse(newValue);
+            case "number":
+                return new Double(newValue);
+            case "boolean":
+                return new Boolean(newValue);
+            case "null":
+                return null;
+            default:
+                return newValue;
+        }
+    }
+
+    /**
+     * Replaces null values in objects by "TO_BE_NULL", recursively.
+     *
+     * @param node tree modified by JsonPath
+     */
+    private void markNulls(Object node) {
+        if (node instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) node).entrySet()) {
+                if (entry.getValue() == null) {
+                    entry.setValue("TO_BE_NULL");
+                } else {
+                    markNulls(entry.getValue());
+                }
+            }
+        } else if (node instanceof List) {
+            for (Object element : (List<Object>) node) {
+                markNulls(element);
+            }
+        }
+    }
+
     /**
      * Eliminates null occurrences, replacing them with "TO_BE_NULL"
      *
@@ -988,6 +1064,32 @@ public class CommonG {
      */
     public Future<Response> generateRequest(String requestType, boolean secure, String user, String password, String endPoint, String data, String type) throws Exception {
 
+        this.lastRequest = () -> sendRequest(requestType, user, password, endPoint, data, type, new AsyncCompletionHandlerBase());
+        TimedResponseHandler timer = new TimedResponseHandler(data == null ? 0 : data.getBytes("UTF-8").length,
+                ResponseBodyCapture.isEnabled() ? ResponseBodyCapture.fromSettings() : null);
+        if (this.lastRequestTimer != null) {
+            this.lastRequestTimer.discardBody();
+        }
+        this.lastRequestTimer = timer;
+
+        return sendRequest(requestType, user, password, endPoint, data, type, timer);
+    }
+
+    /**
+     * Sends a request without recording it as the last one, so its response is only seen by the given handler.
+     *
+     * @param requestType type of request to be sent
+     * @param user        user to be used in request
+     * @param password    password to be used in request
+     * @param endPoint    end point to sent the request to
+     * @param data        to be sent for PUT/POST requests
+     * @param type        type of data to be sent (json|string)
+     * @param handler     handler of the response
+     * @throws Exception
+     */
+    private Future<Response> sendRequest(String requestType, String user, String password, String endPoint, String data, String type,
+                                         AsyncHandler<Response> handler) throws Exception {
+
         String protocol = this.getRestProtocol();
         Future<Response> response = null;
         BoundRequestBuilder request;
@@ -1008,6 +1110,10 @@ public class CommonG {
 
         String restURL = protocol + this.getRestHost() + this.getRestPort();
 
+        if (this.isPooledClient()) {
+            this.setClient(RestClientPool.INSTANCE.getClient(protocol, this.getRestHost(), this.getRestPort()));
+        }
+
         // Setup user and password for requests
         if (user != null) {
             realm = new Realm.RealmBuilder()
@@ -1055,7 +1161,7 @@ public class CommonG {
                     request = request.setRealm(realm);
                 }
 
-                response = request.execute();
+                response = request.execute(handler);
                 break;
             case "DELETE":
                 request = this.getClient().prepareDelete(restURL + endPoint);
@@ -1085,7 +1191,7 @@ public class CommonG {
                     request = request.setRealm(realm);
                 }
 
-                response = request.execute();
+                response = request.execute(handler);
                 break;
             case "POST":
                 if (data == null) {
@@ -1125,7 +1231,7 @@ public class CommonG {
                         request = request.setRealm(realm);
                     }
 
-                    response = this.getClient().executeRequest(request.build());
+                    response = this.getClient().executeRequest(request.build(), handler);
                     break;
                 }
             case "PUT":
@@ -1165,7 +1271,7 @@ public class CommonG {
                         request = request.setRealm(realm);
                     }
 
-                    response = this.getClient().executeRequest(request.build());
+                    response = this.getClient().executeRequest(request.build(), handler);
                     break;
                 }
             case "CONNECT":
@@ -1197,6 +1303,87 @@ public class CommonG {
         return generateRequest(requestType, false, null, null, endPoint, data, type, "");
     }
 
+    /**
+     * Sends the same request many times, keeping at most {@code concurrency} of them in flight, and records
+     * the latency of each one.
+     * <p>
+     * No thread is blocked per request: a new request is only issued once a previous one has completed,
+     * and completions are handled by the http client callbacks. Load requests are not recorded as the last
+     * request, so the last response and its timings are kept.
+     *
+     * @param requestType type of request to be sent
+     * @param user        user to be used in requests, null if none
+     * @param password    password to be used in requests
+     * @param endPoint    end point to sent the request to
+     * @param data        to be sent for PUT/POST requests
+     * @param type        type of data to be sent (json|string)
+     * @param requests    total number of requests to send
+     * @param concurrency max number of requests waiting for a response at the same time
+     * @param errors      incremented for every request failing or answered with a status code 4xx/5xx
+     * @return LatencyHistogram with the latency of each request, in microseconds
+     * @throws Exception
+     */
+    public LatencyHistogram generateLoad(String requestType, String user, String password, String endPoint, String data, String type,
+                                         int requests, int concurrency, final AtomicInteger errors) throws Exception {
+        return generateLoad(() -> sendRequest(requestType, user, password, endPoint, data, type, new AsyncCompletionHandlerBase()),
+                requests, concurrency, errors);
+    }
+
+    /**
+     * Sends a request many times, keeping at most {@code concurrency} of them in flight, and records the
+     * latency of each one.
+     *
+     * @param request     call sending one request, as returned by {@link #getLastRequest()}
+     * @param requests    total number of requests to send
+     * @param concurrency max number of requests waiting for a response at the same time
+     * @param errors      incremented for every request failing or answered with a status code 4xx/5xx
+     * @return LatencyHistogram with the latency of each request, in microseconds
+     * @throws Exception
+     */
+    public LatencyHistogram generateLoad(Callable<Future<Response>> request, int requests, int concurrency,
+                                         final AtomicInteger errors) throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final CountDownLatch completed = new CountDownLatch(requests);
+
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            final long sent = System.nanoTime();
+            final Future<Response> future;
+            try {
+                future = request.call();
+            } catch (Exception e) {
+                inFlight.release();
+                throw e;
+            }
+
+            Runnable onCompletion = () -> {
+                try {
+                    Response response = future.get();
+                    histogram.recordValue((System.nanoTime() - sent) / 1000);
+                    if (response.getStatusCode() >= 400) {
+                        errors.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    histogram.recordValue((System.nanoTime() - sent) / 1000);
+                    errors.incrementAndGet();
+                } finally {
+                    inFlight.release();
+                    completed.countDown();
+                }
+            };
+
+            if (future instanceof ListenableFuture) {
+                ((ListenableFuture<Response>) future).addListener(onCompletion, Runnable::run);
+            } else {
+                onCompletion.run();
+            }
+        }
+
+        completed.await();
+        return histogram;
+    }
+
 
     /**
      * Saves the value in the attribute in class extending CommonG.
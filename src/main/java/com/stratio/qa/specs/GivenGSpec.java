@@ -239,7 +239,7 @@ public class GivenGSpec extends BaseGSpec {
             json = matcher.group(2);
             parsedElement = matcher.group(4);
         } else {
-            json = commonspec.getResponse().getResponse();
+            json = commonspec.getResponse().getCompleteResponse();
             parsedElement = element;
         }
 
@@ -288,7 +288,7 @@ public class GivenGSpec extends BaseGSpec {
 
         String json;
         String parsedElement;
-        json = commonspec.getResponse().getResponse();
+        json = commonspec.getResponse().getCompleteResponse();
         parsedElement = "$..cluster_name";
 
         String json2 = "[" + json + "]";
@@ -377,7 +377,8 @@ public class GivenGSpec extends BaseGSpec {
     }
 
     /**
-     * Browse to {@code url} using the current browser.
+     * Browse to {@code url} using the current browser, and collect the navigation timings of the page (see
+     * {@link CommonG#capturePageTimings()}).
      *
      * @param path
      * @throws Exception
@@ -402,6 +403,7 @@ public class GivenGSpec extends BaseGSpec {
 
         commonspec.getDriver().get(webURL + path);
         commonspec.setParentWindow(commonspec.getDriver().getWindowHandle());
+        commonspec.capturePageTimings();
     }
 
     /**
@@ -16,11 +16,16 @@
 
 package com.stratio.qa.specs;
 
-import com.ning.http.client.AsyncHttpClient;
-import com.ning.http.client.AsyncHttpClientConfig;
+import com.stratio.qa.data.BrowserCapacity;
+import com.stratio.qa.data.GridBrowserDiscovery;
 import com.stratio.qa.exceptions.DBException;
+import com.stratio.qa.utils.LocalBrowserService;
+import com.stratio.qa.utils.PageTimings;
+import com.stratio.qa.utils.RestClientPool;
 import com.stratio.qa.utils.ThreadProperty;
+import com.stratio.qa.utils.WebDriverPool;
 import com.thoughtworks.selenium.SeleniumException;
+import cucumber.api.Scenario;
 import cucumber.api.java.After;
 import cucumber.api.java.Before;
 import org.openqa.selenium.Dimension;
@@ -74,17 +79,24 @@ public class HookGSpec extends BaseGSpec {
 
 
     /**
-     * Connect to selenium.
+     * Connect to selenium, through the grid set by SELENIUM_GRID or to the local browser when SELENIUM_LOCAL is
+     * enabled (see {@link LocalBrowserService}).
      *
      * @throws MalformedURLException
+     * @throws InterruptedException
      */
     @Before(order = ORDER_10, value = {"@mobile,@web"})
-    public void seleniumSetup() throws MalformedURLException {
+    public void seleniumSetup() throws MalformedURLException, InterruptedException {
+        boolean local = LocalBrowserService.INSTANCE.isEnabled();
         String grid = System.getProperty("SELENIUM_GRID");
-        if (grid == null) {
+        if (grid == null && !local) {
             fail("Selenium grid not available");
         }
         String b = ThreadProperty.get("browser");
+        if (local && !LocalBrowserService.BROWSER.equals(b)) {
+            b = LocalBrowserService.BROWSER;
+            ThreadProperty.set("browser", b);
+        }
 
         if ("".equals(b)) {
             fail("Non available browsers");
@@ -130,12 +142,33 @@ public class HookGSpec extends BaseGSpec {
                 throw new SeleniumException("Unknown browser: " + browser);
         }
 
-        capabilities.setVersion(version);
-
-        grid = "http://" + grid + "/wd/hub";
+        String hub;
+        if (local) {
+            hub = LocalBrowserService.INSTANCE.url();
+        } else {
+            if (!GridBrowserDiscovery.ANY_VERSION.equals(version)) {
+                capabilities.setVersion(version);
+            }
+            hub = "http://" + grid + "/wd/hub";
+        }
         HttpClient.Factory factory = new ApacheHttpClient.Factory(new HttpClientFactory(60000, 60000));
-        HttpCommandExecutor executor = new HttpCommandExecutor(new HashMap<String, CommandInfo>(), new URL(grid), factory);
-        commonspec.setDriver(new RemoteWebDriver(executor, capabilities));
+        HttpCommandExecutor executor = new HttpCommandExecutor(new HashMap<String, CommandInfo>(), new URL(hub), factory);
+        DesiredCapabilities sessionCapabilities = capabilities;
+        if (isCapacityAware()) {
+            BrowserCapacity.INSTANCE.acquire(b);
+        }
+        try {
+            if (WebDriverPool.INSTANCE.isEnabled()) {
+                commonspec.setDriver(WebDriverPool.INSTANCE.acquire(b, () -> new RemoteWebDriver(executor, sessionCapabilities)));
+            } else {
+                commonspec.setDriver(new RemoteWebDriver(executor, capabilities));
+            }
+        } catch (RuntimeException e) {
+            if (isCapacityAware()) {
+                BrowserCapacity.INSTANCE.release(b);
+            }
+            throw e;
+        }
         commonspec.getDriver().manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT, TimeUnit.SECONDS);
         commonspec.getDriver().manage().timeouts().implicitlyWait(IMPLICITLY_WAIT, TimeUnit.SECONDS);
         commonspec.getDriver().manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT, TimeUnit.SECONDS);
@@ -150,17 +183,52 @@ public class HookGSpec extends BaseGSpec {
 
 
     /**
-     * Close selenium web driver.
+     * Attach the timings of the pages browsed by the scenario to its report.
+     *
+     * @param scenario
      */
     @After(order = ORDER_20, value = {"@mobile,@web"})
-    public void seleniumTeardown() {
+    public void pageTimingsReport(Scenario scenario) {
+        for (PageTimings timings : commonspec.getPageTimings()) {
+            scenario.write(timings.toString());
+        }
+    }
+
+    /**
+     * Close selenium web driver, or hand it back to the session pool.
+     *
+     * @param scenario
+     */
+    @After(order = ORDER_20, value = {"@mobile,@web"})
+    public void seleniumTeardown(Scenario scenario) {
         if (commonspec.getDriver() != null) {
-            commonspec.getLogger().debug("Shutdown Selenium client");
-            commonspec.getDriver().close();
-            commonspec.getDriver().quit();
+            try {
+                if (WebDriverPool.INSTANCE.isEnabled()) {
+                    commonspec.getLogger().debug("Releasing pooled Selenium client");
+                    WebDriverPool.INSTANCE.release(commonspec.getDriver(), scenario.isFailed());
+                    commonspec.setDriver(null);
+                } else {
+                    commonspec.getLogger().debug("Shutdown Selenium client");
+                    commonspec.getDriver().close();
+                    commonspec.getDriver().quit();
+                }
+            } finally {
+                if (isCapacityAware()) {
+                    BrowserCapacity.INSTANCE.release(ThreadProperty.get("browser"));
+                }
+            }
         }
     }
 
+    /**
+     * Checks whether sessions are limited to the free grid slots, which does not apply to the local browser.
+     *
+     * @return boolean
+     */
+    private boolean isCapacityAware() {
+        return BrowserCapacity.INSTANCE.isEnabled() && !LocalBrowserService.INSTANCE.isEnabled();
+    }
+
     /**
      * Close logger.
      */
@@ -170,16 +238,24 @@ public class HookGSpec extends BaseGSpec {
 
     @Before(order = 10, value = "@rest")
     public void restClientSetup() throws Exception {
-        commonspec.getLogger().debug("Starting a REST client");
-
-        commonspec.setClient(new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setAcceptAnyCertificate(true).setAllowPoolingConnections(false)
-                .build()));
+        if (RestClientPool.INSTANCE.isEnabled()) {
+            commonspec.getLogger().debug("Using a pooled REST client");
+            commonspec.setPooledClient(true);
+        } else {
+            commonspec.getLogger().debug("Starting a REST client");
+            commonspec.setClient(RestClientPool.INSTANCE.newClient());
+        }
     }
 
     @After(order = 10, value = "@rest")
     public void restClientTeardown() throws IOException {
-        commonspec.getLogger().debug("Shutting down REST client");
-        commonspec.getClient().close();
+        commonspec.discardResponseBody();
+        if (commonspec.isPooledClient()) {
+            commonspec.setClient(null);
+        } else {
+            commonspec.getLogger().debug("Shutting down REST client");
+            commonspec.getClient().close();
+        }
     }
 
     @After(order = 10)
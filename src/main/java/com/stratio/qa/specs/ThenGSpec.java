@@ -22,6 +22,11 @@ import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.mongodb.DBObject;
 import com.stratio.qa.assertions.DBObjectsAssert;
+import com.stratio.qa.utils.ElementLookup;
+import com.stratio.qa.utils.HttpResponse;
+import com.stratio.qa.utils.LatencyHistogram;
+import com.stratio.qa.utils.PageTimings;
+import com.stratio.qa.utils.PollingWait;
 import com.stratio.qa.utils.PreviousWebElements;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.DataTable;
@@ -34,7 +39,9 @@ import org.assertj.core.api.WritableAssertionInfo;
 import org.json.JSONArray;
 import org.openqa.selenium.WebElement;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static com.stratio.qa.assertions.Assertions.assertThat;
@@ -293,33 +300,23 @@ public class ThenGSpec extends BaseGSpec {
 
     /**
      * Checks if {@code expectedCount} webelements are found, whithin a {@code timeout} and with a location
-     * {@code method}. Each negative lookup is followed by a wait of {@code wait} seconds. Selenium times are not
-     * accounted for the mentioned timeout.
+     * {@code method}. Each negative lookup is followed by a wait of {@code wait} seconds, or SELENIUM_POLLING_INTERVAL
+     * ms if lower (see {@link PollingWait} for backoff settings). Selenium times are accounted for the mentioned
+     * timeout, and the implicit wait is switched off while polling.
      *
      * @param timeout
      * @param wait
      * @param expectedCount
      * @param method
      * @param element
-     * @throws InterruptedException
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
-     * @throws SecurityException
-     * @throws NoSuchFieldException
-     * @throws ClassNotFoundException
+     * @throws Exception
      */
     @Then("^in less than '(\\d+?)' seconds, checking each '(\\d+?)' seconds, '(\\d+?)' elements exists with '([^:]*?):([^:]*?)'$")
     public void assertSeleniumNElementExistsOnTimeOut(Integer timeout, Integer wait, Integer expectedCount,
-                                                      String method, String element) throws InterruptedException, ClassNotFoundException, NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
-        List<WebElement> wel = null;
-        for (int i = 0; i < timeout; i += wait) {
-            wel = commonspec.locateElement(method, element, -1);
-            if (wel.size() == expectedCount) {
-                break;
-            } else {
-                Thread.sleep(wait * 1000);
-            }
-        }
+                                                      String method, String element) throws Exception {
+        PollingWait polling = new PollingWait(timeout * 1000L, ElementLookup.pollingInterval(wait * 1000L));
+        List<WebElement> wel = commonspec.getElementLookup().waitFor(polling, method, element, found -> found.size() == expectedCount);
+        commonspec.getLogger().debug("{} elements lookup finished after {} attempts in {} ms", wel.size(), polling.getAttempts(), polling.getElapsed());
 
         PreviousWebElements pwel = new PreviousWebElements(wel);
         assertThat(this.commonspec, pwel).as("Element count doesnt match").hasSize(expectedCount);
@@ -328,42 +325,30 @@ public class ThenGSpec extends BaseGSpec {
     }
 
     /**
-     * Checks if {@code expectedCount} element is found, whithin a {@code timeout} and with a location
-     * {@code method}. Each negative lookup is followed by a wait of {@code wait} seconds. Selenium times are not
-     * accounted for the mentioned timeout.
+     * Checks if the output of {@code command} contains {@code search}, whithin a {@code timeout}. Each negative
+     * check is followed by a wait of {@code wait} seconds (see {@link PollingWait} for backoff settings). Command
+     * execution times are accounted for the mentioned timeout.
      *
      * @param timeout
      * @param wait
      * @param command
      * @param search
-     * @throws InterruptedException
+     * @throws Exception
      */
     @Then("^in less than '(\\d+?)' seconds, checking each '(\\d+?)' seconds, the command output '(.+?)' contains '(.+?)'$")
     public void assertCommandExistsOnTimeOut(Integer timeout, Integer wait, String command, String search) throws Exception {
-        Boolean found = false;
-        AssertionError ex = null;
+        PollingWait polling = new PollingWait(timeout * 1000L, wait * 1000L);
 
-        for (int i = 0; (i <= timeout); i += wait) {
-            if (found) {
-                break;
-            }
+        polling.until(() -> {
             commonspec.getLogger().debug("Checking output value");
             commonspec.getRemoteSSHConnection().runCommand(command);
             commonspec.setCommandResult(commonspec.getRemoteSSHConnection().getResult());
-            try {
-                assertThat(commonspec.getCommandResult()).as("Contains " + search + ".").contains(search);
-                found = true;
-                timeout = i;
-            } catch (AssertionError e) {
-                commonspec.getLogger().info("Command output don't found yet after " + i + " seconds");
-                Thread.sleep(wait * 1000);
-                ex = e;
-            }
-        }
-        if (!found) {
-            throw (ex);
-        }
-        commonspec.getLogger().info("Command output found after " + timeout + " seconds");
+            return commonspec.getCommandResult().contains(search);
+        });
+
+        assertThat(commonspec.getCommandResult()).as("Contains " + search + " after " + polling.getAttempts() + " attempts in "
+                + polling.getElapsed() + " ms.").contains(search);
+        commonspec.getLogger().info("Command output found after {} attempts in {} ms", polling.getAttempts(), polling.getElapsed());
     }
 
 
@@ -466,7 +451,7 @@ public class ThenGSpec extends BaseGSpec {
     @Then("^the service response must contain the text '(.*?)'$")
     public void assertResponseMessage(String expectedText) throws ClassNotFoundException, NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
         Pattern pattern = CommonG.matchesOrContains(expectedText);
-        assertThat(commonspec.getResponse().getResponse()).containsPattern(pattern);
+        assertResponseContains(commonspec.getResponse(), pattern);
     }
 
     @Then("^the service response status must be '(.*?)' and its response must contain the text '(.*?)'$")
@@ -475,18 +460,120 @@ public class ThenGSpec extends BaseGSpec {
         Pattern pattern = CommonG.matchesOrContains(expectedText);
         assertThat(Optional.of(commonspec.getResponse())).hasValueSatisfying(r -> {
             assertThat(r.getStatusCode()).isEqualTo(expectedStatus);
-            assertThat(r.getResponse()).containsPattern(pattern);
+            assertResponseContains(r, pattern);
         });
     }
 
+    /**
+     * Checks a response body contains a pattern. Bodies spilled to disk are checked without loading them.
+     *
+     * @param response
+     * @param pattern
+     */
+    private void assertResponseContains(HttpResponse response, Pattern pattern) {
+        if (response.getBodyFile() == null) {
+            assertThat(response.getResponse()).containsPattern(pattern);
+        } else {
+            try {
+                assertThat(response.containsPattern(pattern))
+                        .as("Expecting response starting with:\n<%s>\nto contain pattern:\n<%s>", response.getResponse(), pattern).isTrue();
+            } catch (IOException e) {
+                throw new AssertionError("Response body could not be read from " + response.getBodyFile(), e);
+            }
+        }
+    }
+
     @Then("^the service response status must be '(.*?)' and its response length must be '(.*?)'$")
     public void assertResponseStatusLength(Integer expectedStatus, Integer expectedLength) {
         assertThat(Optional.of(commonspec.getResponse())).hasValueSatisfying(r -> {
             assertThat(r.getStatusCode()).isEqualTo(expectedStatus);
-            assertThat((new JSONArray(r.getResponse())).length()).isEqualTo(expectedLength);
+            assertThat((new JSONArray(r.getCompleteResponse())).length()).isEqualTo(expectedLength);
         });
     }
 
+    /**
+     * Checks the time taken by the last service response.
+     * <p>
+     * When executions are given, the last request is sent that many times in a row and the given percentile
+     * of their response times is checked instead. Any failed execution fails the step, as its time would not
+     * be part of the percentile.
+     *
+     * @param firstByte  if present, time to first byte is checked instead of the total response time
+     * @param maxTime    max response time, in milliseconds
+     * @param foo        parameter generated by cucumber because of the optional expression
+     * @param percentile percentile of the response times to check (e.g. 95)
+     * @param executions number of times the last request is repeated
+     * @throws Exception
+     */
+    @Then("^the service response time( to first byte)? must be lower than '(\\d+?)' ms( in the '(\\d+?)' percentile of '(\\d+?)' executions)?$")
+    public void assertResponseTime(String firstByte, Long maxTime, String foo, Integer percentile, Integer executions) throws Exception {
+        assertThat(commonspec.getResponse()).as("No request has been sent yet").isNotNull();
+
+        if (foo == null) {
+            long elapsed = firstByte == null ? commonspec.getResponse().getTotalTime() : commonspec.getResponse().getTimeToFirstByte();
+            assertThat(elapsed).as("Service response time").isLessThan(maxTime);
+        } else {
+            assertThat(firstByte).as("Time to first byte can only be checked for a single execution").isNull();
+            AtomicInteger errors = new AtomicInteger();
+            LatencyHistogram histogram = commonspec.generateLoad(commonspec.getLastRequest(), executions, 1, errors);
+            long elapsed = LatencyHistogram.toMillis(histogram.getValueAtPercentile(percentile));
+            commonspec.getLogger().debug("Response time percentile {} over {} executions is {} ms ({} errors)", percentile, executions, elapsed, errors.get());
+            assertThat(errors.get()).as("Failed executions of the last request").isEqualTo(0);
+            assertThat(elapsed).as("Service response time percentile " + percentile).isLessThan(maxTime);
+        }
+    }
+
+    /**
+     * Checks a navigation time of the last browsed page, measured from the start of the navigation (DNS lookup
+     * and connection are durations).
+     *
+     * @param metric  load, DOM content loaded, first byte, DNS lookup or connection
+     * @param maxTime max time, in milliseconds
+     */
+    @Then("^the page (load|DOM content loaded|first byte|DNS lookup|connection) time is lower than '(\\d+?)' ms$")
+    public void assertPageTime(String metric, Long maxTime) {
+        PageTimings timings = lastPageTimings();
+        long elapsed;
+        switch (metric) {
+            case "load":
+                elapsed = timings.getLoad();
+                break;
+            case "DOM content loaded":
+                elapsed = timings.getDomContentLoaded();
+                break;
+            case "first byte":
+                elapsed = timings.getFirstByte();
+                break;
+            case "DNS lookup":
+                elapsed = timings.getDns();
+                break;
+            default:
+                elapsed = timings.getConnect();
+                break;
+        }
+        assertThat(elapsed).as("Page " + metric + " time has not been reported").isGreaterThanOrEqualTo(0L);
+        assertThat(elapsed).as("Page " + metric + " time of " + timings.getUrl()).isLessThan(maxTime);
+    }
+
+    /**
+     * Checks the resources loaded by the last browsed page.
+     *
+     * @param max   max number of resources or bytes
+     * @param units resources or resource bytes
+     */
+    @Then("^the page loads less than '(\\d+?)' (resources|resource bytes)$")
+    public void assertPageResources(Long max, String units) {
+        PageTimings timings = lastPageTimings();
+        long loaded = "resources".equals(units) ? timings.getResources() : timings.getResourceBytes();
+        assertThat(loaded).as("Page " + units + " of " + timings.getUrl()).isLessThan(max);
+    }
+
+    private PageTimings lastPageTimings() {
+        List<PageTimings> timings = commonspec.getPageTimings();
+        assertThat(timings).as("No page timings have been collected yet").isNotEmpty();
+        return timings.get(timings.size() - 1);
+    }
+
     /**
      * Checks the different results of a previous query
      *
@@ -24,6 +24,9 @@ import com.mongodb.util.JSON;
 import com.ning.http.client.Response;
 import com.stratio.qa.cucumber.converter.ArrayListConverter;
 import com.stratio.qa.cucumber.converter.NullableStringConverter;
+import com.stratio.qa.utils.LatencyHistogram;
+import com.stratio.qa.utils.PollingWait;
+import com.stratio.qa.utils.RetrievedDataCache;
 import com.stratio.qa.utils.ThreadProperty;
 import cucumber.api.DataTable;
 import cucumber.api.Transform;
@@ -42,6 +45,7 @@ import org.openqa.selenium.support.ui.Select;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static com.stratio.qa.assertions.Assertions.assertThat;
@@ -254,12 +258,9 @@ public class WhenGSpec extends BaseGSpec {
      */
     @When("^I send a '(.+?)' request to '(.+?)'( with user and password '(.+:.+?)')? based on '([^:]+?)'( as '(json|string)')? with:$")
     public void sendRequest(String requestType, String endPoint, String foo, String loginInfo, String baseData, String baz, String type, DataTable modifications) throws Exception {
-        // Retrieve data
-        String retrievedData = commonspec.retrieveData(baseData, type);
-
-        // Modify data
-        commonspec.getLogger().debug("Modifying data {} as {}", retrievedData, type);
-        String modifiedData = commonspec.modifyData(retrievedData, type, modifications).toString();
+        // Retrieve and modify data
+        commonspec.getLogger().debug("Modifying data {} as {}", baseData, type);
+        String modifiedData = commonspec.modifyRetrievedData(baseData, type, modifications);
 
         String user = null;
         String password = null;
@@ -318,6 +319,7 @@ public class WhenGSpec extends BaseGSpec {
 
     /**
      * Same sendRequest, but in this case, the rersponse is checked until it contains the expected value
+     * (see {@link PollingWait} for backoff settings). Request times are accounted for the timeout.
      *
      * @param timeout
      * @param wait
@@ -329,34 +331,77 @@ public class WhenGSpec extends BaseGSpec {
     @When("^in less than '(\\d+?)' seconds, checking each '(\\d+?)' seconds, I send a '(.+?)' request to '(.+?)' so that the response contains '(.+?)'$")
     public void sendRequestTimeout(Integer timeout, Integer wait, String requestType, String endPoint, String responseVal) throws Exception {
 
-        Boolean found = false;
-        AssertionError ex = null;
-
         String type = "";
-        Future<Response> response;
         Pattern pattern = CommonG.matchesOrContains(responseVal);
+        PollingWait polling = new PollingWait(timeout * 1000L, wait * 1000L);
 
-        for (int i = 0; (i <= timeout); i += wait) {
-            if (found) {
-                break;
-            }
-            response = commonspec.generateRequest(requestType, false, null, null, endPoint, "", type, "");
+        boolean found = polling.until(() -> {
+            Future<Response> response = commonspec.generateRequest(requestType, false, null, null, endPoint, "", type, "");
             commonspec.setResponse(requestType, response.get());
             commonspec.getLogger().debug("Checking response value");
-            try {
-                assertThat(commonspec.getResponse().getResponse()).containsPattern(pattern);
-                found = true;
-                timeout = i;
-            } catch (AssertionError e) {
-                commonspec.getLogger().info("Response value don't found yet after " + i + " seconds");
-                Thread.sleep(wait * 1000);
-                ex = e;
-            }
+            return commonspec.getResponse().containsPattern(pattern);
+        });
+
+        assertThat(found).as("Expecting response after %d attempts in %d ms:\n<%s>\nto contain pattern:\n<%s>",
+                polling.getAttempts(), polling.getElapsed(), commonspec.getResponse().getResponse(), pattern).isTrue();
+        commonspec.getLogger().info("Response value found after {} attempts in {} ms", polling.getAttempts(), polling.getElapsed());
+    }
+
+    /**
+     * Send the same request many times with a bounded number of requests in flight, and save its latency
+     * statistics in environment variables. Latencies are saved in milliseconds and throughput in requests
+     * per second, so they can be checked afterwards:
+     * <p>
+     * Then '!{LOAD_P99}' is lower than '200'
+     *
+     * @param requests    number of requests to be sent
+     * @param requestType type of request to be sent
+     * @param endPoint    end point to be used
+     * @param qux         parameter generated by cucumber because of the optional expression
+     * @param loginInfo   user and password, separated by ':'
+     * @param concurrency max number of requests waiting for a response at the same time
+     * @param foo         parameter generated by cucumber because of the optional expression
+     * @param baseData    path to file containing the schema to be used
+     * @param bar         parameter generated by cucumber because of the optional expression
+     * @param type        element to read from file (element should contain a json)
+     * @param baz         parameter generated by cucumber because of the optional expression
+     * @param prefix      prefix of the variables where results are saved (LOAD by default):
+     *                    PREFIX_COUNT, PREFIX_ERRORS, PREFIX_P50, PREFIX_P95, PREFIX_P99, PREFIX_MAX, PREFIX_THROUGHPUT
+     * @throws Exception
+     */
+    @When("^I generate a load of '(\\d+?)' '(.+?)' requests to '(.+?)'( with user and password '(.+:.+?)')? with concurrency '(\\d+?)'( based on '([^:]+?)')?( as '(json|string)')?( and save the results with prefix '(.+?)')?$")
+    public void generateLoad(Integer requests, String requestType, String endPoint, String qux, String loginInfo, Integer concurrency,
+                             String foo, String baseData, String bar, String type, String baz, String prefix) throws Exception {
+        String user = null;
+        String password = null;
+        if (loginInfo != null) {
+            user = loginInfo.substring(0, loginInfo.indexOf(':'));
+            password = loginInfo.substring(loginInfo.indexOf(':') + 1, loginInfo.length());
+        }
+        String data = "";
+        if (baseData != null) {
+            data = commonspec.retrieveData(baseData, type);
         }
-        if (!found) {
-            throw (ex);
+        if (prefix == null) {
+            prefix = "LOAD";
         }
-        commonspec.getLogger().info("Response value found after " + timeout + " seconds");
+
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        LatencyHistogram histogram = commonspec.generateLoad(requestType, user, password, endPoint, data, type, requests, concurrency, errors);
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+
+        ThreadProperty.set(prefix + "_COUNT", String.valueOf(histogram.getTotalCount()));
+        ThreadProperty.set(prefix + "_ERRORS", String.valueOf(errors.get()));
+        ThreadProperty.set(prefix + "_P50", String.valueOf(LatencyHistogram.toMillis(histogram.getValueAtPercentile(50))));
+        ThreadProperty.set(prefix + "_P95", String.valueOf(LatencyHistogram.toMillis(histogram.getValueAtPercentile(95))));
+        ThreadProperty.set(prefix + "_P99", String.valueOf(LatencyHistogram.toMillis(histogram.getValueAtPercentile(99))));
+        ThreadProperty.set(prefix + "_MAX", String.valueOf(LatencyHistogram.toMillis(histogram.getMaxValue())));
+        ThreadProperty.set(prefix + "_THROUGHPUT", String.valueOf(histogram.getTotalCount() * 1000 / elapsedMs));
+
+        commonspec.getLogger().info("Sent {} {} requests to {} in {} ms: p50={}ms p95={}ms p99={}ms max={}ms, {} errors",
+                histogram.getTotalCount(), requestType, endPoint, elapsedMs, ThreadProperty.get(prefix + "_P50"),
+                ThreadProperty.get(prefix + "_P95"), ThreadProperty.get(prefix + "_P99"), ThreadProperty.get(prefix + "_MAX"), errors.get());
     }
 
     @When("^I login to '(.+?)' based on '([^:]+?)' as '(json|string)'$")
@@ -400,14 +445,12 @@ public class WhenGSpec extends BaseGSpec {
                 query = "SELECT " + fields + " FROM " + table + ";";
 
             } else if (!schema.equals("empty") && magic_column.equals("empty")) {
-                String retrievedData = commonspec.retrieveData(schema, type);
-                String modifiedData = commonspec.modifyData(retrievedData, type, modifications).toString();
+                String modifiedData = commonspec.modifyRetrievedData(schema, type, modifications);
                 query = "SELECT " + fields + " FROM " + table + " WHERE " + modifiedData + ";";
 
 
             } else {
-                String retrievedData = commonspec.retrieveData(schema, type);
-                String modifiedData = commonspec.modifyData(retrievedData, type, modifications).toString();
+                String modifiedData = commonspec.modifyRetrievedData(schema, type, modifications);
                 query = "SELECT " + fields + " FROM " + table + " WHERE " + magic_column + " = '" + modifiedData + "';";
 
             }
@@ -434,8 +477,7 @@ public class WhenGSpec extends BaseGSpec {
     public void sendQueryOfType(String query, String type, String database, String collection, DataTable modifications) throws Exception {
         try {
             commonspec.setResultsType("mongo");
-            String retrievedData = commonspec.retrieveData(query, type);
-            String modifiedData = commonspec.modifyData(retrievedData, type, modifications);
+            String modifiedData = commonspec.modifyRetrievedData(query, type, modifications);
             commonspec.getMongoDBClient().connectToMongoDBDataBase(database);
             DBCollection dbCollection = commonspec.getMongoDBClient().getMongoDBCollection(collection);
             DBObject dbObject = (DBObject) JSON.parse(modifiedData);
@@ -486,8 +528,7 @@ public class WhenGSpec extends BaseGSpec {
      */
     @When("^I create a Cassandra index named '(.+?)' with schema '(.+?)' of type '(json|string)' in table '(.+?)' using magic_column '(.+?)' using keyspace '(.+?)' with:$")
     public void createCustomMapping(String index_name, String schema, String type, String table, String magic_column, String keyspace, DataTable modifications) throws Exception {
-        String retrievedData = commonspec.retrieveData(schema, type);
-        String modifiedData = commonspec.modifyData(retrievedData, type, modifications).toString();
+        String modifiedData = commonspec.modifyRetrievedData(schema, type, modifications);
         String query = "CREATE CUSTOM INDEX " + index_name + " ON " + keyspace + "." + table + "(" + magic_column + ") "
                 + "USING 'com.stratio.cassandra.lucene.Index' WITH OPTIONS = " + modifiedData;
         commonspec.getLogger().debug("Will execute a cassandra query: {}", query);
@@ -771,12 +812,9 @@ public class WhenGSpec extends BaseGSpec {
      */
     @When("^I create file '(.+?)' based on '(.+?)' as '(.+?)' with:$")
     public void createFile(String fileName, String baseData, String type, DataTable modifications) throws Exception {
-        // Retrieve data
-        String retrievedData = commonspec.retrieveData(baseData, type);
-
-        // Modify data
-        commonspec.getLogger().debug("Modifying data {} as {}", retrievedData, type);
-        String modifiedData = commonspec.modifyData(retrievedData, type, modifications).toString();
+        // Retrieve and modify data
+        commonspec.getLogger().debug("Modifying data {} as {}", baseData, type);
+        String modifiedData = commonspec.modifyRetrievedData(baseData, type, modifications);
 
         // Create file (temporary) and set path to be accessible within test
         File tempDirectory = new File(String.valueOf(System.getProperty("user.dir") + "/target/test-classes/"));
@@ -792,6 +830,8 @@ public class WhenGSpec extends BaseGSpec {
             out.close();
         }
 
+        RetrievedDataCache.INSTANCE.invalidate(fileName);
+
         Assertions.assertThat(new File(absolutePathFile).isFile());
     }
 }
@@ -43,9 +43,28 @@ public abstract class BaseGTest {
      */
     @AfterSuite(alwaysRun = true)
     public void afterGSuite(ITestContext context) {
+        release("evidence writer", EvidenceWriter.INSTANCE::flush);
+        release("step timings", StepTimings.INSTANCE::save);
+        release("REST client pool", RestClientPool.INSTANCE::shutdown);
+        release("webdriver pool", WebDriverPool.INSTANCE::shutdown);
+        release("local browser", LocalBrowserService.INSTANCE::shutdown);
         logger.info("Done executing this test-run.");
     }
 
+    /**
+     * Run a suite teardown step, logging its failure so the next ones still run.
+     *
+     * @param name    what is released
+     * @param release teardown step
+     */
+    private void release(String name, Runnable release) {
+        try {
+            release.run();
+        } catch (RuntimeException e) {
+            logger.error("Exception releasing the " + name, e);
+        }
+    }
+
     /**
      * Method executed before a test class.
      *
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+
+/**
+ * Feature and scenario durations of previous runs, as reported by CucumberReporter (Singleton).
+ * <p>
+ * Durations are kept in ms. The history of previous builds is read once per JVM from DURATION_HISTORY_FILE
+ * (default target/durations.properties) and never written, so every runner and JVM of the build splits features
+ * the same way. Durations of this build are merged into that history and saved to DURATION_HISTORY_OUTPUT
+ * (default target/durations-new.properties), shared by every JVM of the build. CI jobs should keep the output
+ * as the history file of the next build. Features are keyed by their path relative to the features folder, and
+ * scenarios by feature key, '#' and test name.
+ */
+public enum DurationHistory {
+    INSTANCE;
+
+    private static final String FEATURES_FOLDER = "features/";
+
+    private final Logger logger = LoggerFactory.getLogger(DurationHistory.class);
+
+    private final Properties pending = new Properties();
+
+    private Properties history;
+
+    private File historyFile;
+
+    /**
+     * Get the history file, read only.
+     *
+     * @return File
+     */
+    public File getFile() {
+        return new File(System.getProperty("DURATION_HISTORY_FILE", "target/durations.properties"));
+    }
+
+    /**
+     * Get the file durations of this build are saved to.
+     *
+     * @return File
+     */
+    public File getOutputFile() {
+        return new File(System.getProperty("DURATION_HISTORY_OUTPUT", "target/durations-new.properties"));
+    }
+
+    /**
+     * Get the key of a feature, from its cucumber uri or file path.
+     *
+     * @param uri feature uri, as src/test/resources/features/folder/name.feature or folder/name.feature
+     * @return String, as folder/name.feature
+     */
+    public static String featureKey(String uri) {
+        String key = uri.replace('\\', '/');
+        int features = key.lastIndexOf(FEATURES_FOLDER);
+        if (features != -1) {
+            key = key.substring(features + FEATURES_FOLDER.length());
+        }
+        return key;
+    }
+
+    /**
+     * Keep a duration, to be written on next save.
+     *
+     * @param key      feature or scenario key
+     * @param duration ms
+     */
+    public synchronized void record(String key, double duration) {
+        pending.setProperty(key, String.valueOf(Math.round(duration)));
+    }
+
+    /**
+     * Get the durations of previous builds. The history file is read on first call only, so later calls get
+     * the same durations whatever this build saves.
+     *
+     * @return Properties, a copy, empty if there is no history
+     */
+    public synchronized Properties load() {
+        File file = getFile();
+        if (history == null || !file.equals(historyFile)) {
+            history = new Properties();
+            historyFile = file;
+            if (file.exists()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    history.load(in);
+                } catch (IOException e) {
+                    logger.warn("Unable to read durations history {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        return (Properties) history.clone();
+    }
+
+    /**
+     * Merge the recorded durations into the output file, which starts as a copy of the history. The file is
+     * locked while it is rewritten, as runners in other JVMs may be saving theirs at the same time.
+     */
+    public synchronized void save() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        File file = getOutputFile();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileLock lock = raf.getChannel().lock()) {
+            byte[] content = new byte[(int) raf.length()];
+            raf.readFully(content);
+            Properties durations = content.length == 0 ? load() : new Properties();
+            durations.load(new ByteArrayInputStream(content));
+            durations.putAll(pending);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            durations.store(out, "Feature and scenario durations in ms");
+            raf.setLength(0);
+            raf.write(out.toByteArray());
+            pending.clear();
+        } catch (IOException e) {
+            logger.warn("Unable to save durations history {}: {}", file, e.getMessage());
+        }
+    }
+}
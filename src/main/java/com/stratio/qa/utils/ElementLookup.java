@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Element lookups for selenium steps, with the locators used by them (id, name, class, xpath and css).
+ * <p>
+ * Many locators are resolved in one javascript round-trip when the driver runs scripts, falling back to one
+ * findElements call per locator otherwise. Waits switch the implicit wait off while polling, so each negative
+ * check costs a round-trip instead of the implicit wait, and it is restored once the wait is over.
+ * <p>
+ * Settings:
+ * SELENIUM_POLLING_INTERVAL (default 500): max ms between checks of element waits.
+ */
+public final class ElementLookup {
+
+    public static final List<String> METHODS = Collections.unmodifiableList(Arrays.asList("id", "name", "class", "xpath", "css"));
+
+    private static final String SCRIPT =
+            "var locators = arguments[0], out = [];"
+            + "for (var i = 0; i < locators.length; i++) {"
+            + "  var m = locators[i][0], v = locators[i][1], found = [], r, j;"
+            + "  if (m === 'xpath') {"
+            + "    r = document.evaluate(v, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    for (j = 0; j < r.snapshotLength; j++) {"
+            + "      if (r.snapshotItem(j).nodeType === 1) { found.push(r.snapshotItem(j)); }"
+            + "    }"
+            + "  } else {"
+            + "    r = m === 'id' ? document.querySelectorAll('[id=\"' + v.replace(/([\"\\\\])/g, '\\\\$1') + '\"]')"
+            + "      : m === 'name' ? document.getElementsByName(v)"
+            + "      : m === 'class' ? document.getElementsByClassName(v)"
+            + "      : document.querySelectorAll(v);"
+            + "    for (j = 0; j < r.length; j++) { found.push(r[j]); }"
+            + "  }"
+            + "  out.push(found);"
+            + "}"
+            + "return out;";
+
+    private final Logger logger = LoggerFactory.getLogger(ElementLookup.class);
+
+    private final WebDriver driver;
+
+    private final long implicitWait;
+
+    /**
+     * @param driver       selenium session
+     * @param implicitWait ms of implicit wait of the session, restored after waits
+     */
+    public ElementLookup(WebDriver driver, long implicitWait) {
+        this.driver = driver;
+        this.implicitWait = implicitWait;
+    }
+
+    /**
+     * Get the interval between checks of an element wait, so that no check is more than SELENIUM_POLLING_INTERVAL
+     * ms late.
+     *
+     * @param interval ms between checks asked by a step
+     * @return long
+     */
+    public static long pollingInterval(long interval) {
+        return Math.min(interval, Long.parseLong(System.getProperty("SELENIUM_POLLING_INTERVAL", "500")));
+    }
+
+    /**
+     * Find the elements matching a locator.
+     *
+     * @param method  id, name, class, xpath or css
+     * @param element locator value
+     * @return List<WebElement>
+     */
+    public List<WebElement> locate(String method, String element) {
+        return locateAll(Collections.singletonList(new String[]{method, element})).get(0);
+    }
+
+    /**
+     * Find the elements matching each locator, in one round-trip when the driver runs scripts.
+     *
+     * @param locators pairs of method and locator value
+     * @return List with the elements found for each locator, in the same order
+     */
+    @SuppressWarnings("unchecked")
+    public List<List<WebElement>> locateAll(List<String[]> locators) {
+        List<List<String>> args = new ArrayList<>(locators.size());
+        for (String[] locator : locators) {
+            if (!METHODS.contains(locator[0])) {
+                throw new IllegalArgumentException("Unknown search method: " + locator[0]);
+            }
+            args.add(Arrays.asList(locator[0], locator[1]));
+        }
+        if (!(driver instanceof JavascriptExecutor)) {
+            List<List<WebElement>> found = new ArrayList<>(locators.size());
+            for (String[] locator : locators) {
+                found.add(driver.findElements(by(locator[0], locator[1])));
+            }
+            return found;
+        }
+
+        logger.debug("Locating {} elements in one script", locators.size());
+        List<List<WebElement>> found = new ArrayList<>(locators.size());
+        for (Object elements : (List<Object>) ((JavascriptExecutor) driver).executeScript(SCRIPT, args)) {
+            found.add(new ArrayList<>((List<WebElement>) elements));
+        }
+        return found;
+    }
+
+    /**
+     * Run a lookup with the implicit wait of the session switched off.
+     *
+     * @param lookup lookup to run
+     * @param <T>    lookup result
+     * @return T
+     * @throws Exception
+     */
+    public <T> T withoutImplicitWait(Callable<T> lookup) throws Exception {
+        driver.manage().timeouts().implicitlyWait(0, TimeUnit.MILLISECONDS);
+        try {
+            return lookup.call();
+        } finally {
+            driver.manage().timeouts().implicitlyWait(implicitWait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Poll a locator until the elements found meet a condition, with the implicit wait switched off.
+     *
+     * @param polling   wait, giving timeout and interval between checks
+     * @param method    id, name, class, xpath or css
+     * @param element   locator value
+     * @param condition condition over the elements found
+     * @return List<WebElement> found by the last check, whether it met the condition or not
+     * @throws Exception
+     */
+    public List<WebElement> waitFor(PollingWait polling, String method, String element,
+                                    Predicate<List<WebElement>> condition) throws Exception {
+        AtomicReference<List<WebElement>> found = new AtomicReference<>();
+        withoutImplicitWait(() -> polling.until(() -> {
+            found.set(locate(method, element));
+            return condition.test(found.get());
+        }));
+        return found.get();
+    }
+
+    private static By by(String method, String element) {
+        switch (method) {
+            case "id":
+                return By.id(element);
+            case "name":
+                return By.name(element);
+            case "class":
+                return By.className(element);
+            case "xpath":
+                return By.xpath(element);
+            default:
+                return By.cssSelector(element);
+        }
+    }
+}
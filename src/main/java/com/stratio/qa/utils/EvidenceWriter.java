@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background writer of selenium evidences: page sources and screen captures (Singleton).
+ * <p>
+ * Test threads only grab the content from the driver and queue it. Encoding, image stitching and file writing
+ * happen on a single writer thread. When EVIDENCE_QUEUE_SIZE evidences are waiting, the test thread writes the
+ * next one itself, so memory stays bounded. Pending evidences are flushed once the suite is done, by
+ * {@link BaseGTest} or, for runs not extending it, by a shutdown hook.
+ * <p>
+ * Settings:
+ * EVIDENCE_ASYNC (default true): disable to write evidences on the test thread.
+ * EVIDENCE_QUEUE_SIZE (default 16): evidences waiting to be written.
+ * EVIDENCE_GZIP (default false): gzip page sources, written as .html.gz.
+ */
+public enum EvidenceWriter {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(EvidenceWriter.class);
+
+    private final Queue<Future<?>> pending = new ConcurrentLinkedQueue<>();
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Queue a page source.
+     *
+     * @param path   file path
+     * @param source page source
+     * @return String, path of the written file
+     */
+    public String writeText(String path, String source) {
+        boolean gzip = Boolean.valueOf(System.getProperty("EVIDENCE_GZIP", "false"));
+        String file = gzip ? path + ".gz" : path;
+        submit(file, out -> out.write(source.getBytes(StandardCharsets.UTF_8)), gzip);
+        return file;
+    }
+
+    /**
+     * Queue an already encoded file content, as a PNG screenshot.
+     *
+     * @param path    file path
+     * @param content file content
+     * @return String, path of the written file
+     */
+    public String write(String path, byte[] content) {
+        submit(path, out -> out.write(content), false);
+        return path;
+    }
+
+    /**
+     * Queue a file whose content is built by the writer straight into the file, as a stitched screen capture.
+     *
+     * @param path    file path
+     * @param content content builder
+     * @return String, path of the written file
+     */
+    public String write(String path, Content content) {
+        submit(path, content, false);
+        return path;
+    }
+
+    /**
+     * Wait until every queued evidence is written.
+     */
+    public void flush() {
+        Future<?> future;
+        while ((future = pending.poll()) != null) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.error("Exception on evidence capture", e.getCause());
+            }
+        }
+    }
+
+    private void submit(String path, Content content, boolean gzip) {
+        Runnable task = () -> {
+            try {
+                save(new File(path), content, gzip);
+            } catch (Exception e) {
+                logger.error("Exception on evidence capture " + path, e);
+            }
+        };
+        if (!Boolean.valueOf(System.getProperty("EVIDENCE_ASYNC", "true"))) {
+            task.run();
+            return;
+        }
+        pending.removeIf(Future::isDone);
+        pending.add(getExecutor().submit(task));
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int queueSize = Integer.parseInt(System.getProperty("EVIDENCE_QUEUE_SIZE", "16"));
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+                Thread thread = new Thread(r, "evidence-writer");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "evidence-flush"));
+        }
+        return executor;
+    }
+
+    private static void save(File file, Content content, boolean gzip) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file))
+                : new BufferedOutputStream(new FileOutputStream(file))) {
+            content.writeTo(out);
+        }
+    }
+
+    /**
+     * Builder of an evidence file content.
+     */
+    @FunctionalInterface
+    public interface Content {
+
+        /**
+         * Write the content.
+         *
+         * @param out file stream
+         * @throws IOException
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -18,7 +18,10 @@ package com.stratio.qa.utils;
 
 import com.ning.http.client.cookie.Cookie;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class HttpResponse {
 
@@ -28,6 +31,18 @@ public class HttpResponse {
 
     private List<Cookie> cookies;
 
+    private long requestStart;
+
+    private long timeToFirstByte;
+
+    private long totalTime;
+
+    private long requestBytes;
+
+    private long responseBytes;
+
+    private File bodyFile;
+
     /**
      * Constructor of an HttpResponse.
      *
@@ -64,4 +79,101 @@ public class HttpResponse {
         this.cookies = cookies;
     }
 
+    /**
+     * Time the request was sent at, as epoch millis.
+     *
+     * @return long
+     */
+    public long getRequestStart() {
+        return requestStart;
+    }
+
+    public void setRequestStart(long requestStart) {
+        this.requestStart = requestStart;
+    }
+
+    /**
+     * Milliseconds elapsed until the response status line was received.
+     *
+     * @return long
+     */
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public void setTimeToFirstByte(long timeToFirstByte) {
+        this.timeToFirstByte = timeToFirstByte;
+    }
+
+    /**
+     * Milliseconds elapsed until the whole response was received.
+     *
+     * @return long
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public void setTotalTime(long totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public void setRequestBytes(long requestBytes) {
+        this.requestBytes = requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * File holding the whole body when it was too big to be kept in memory. In that case
+     * {@link #getResponse()} only returns its first bytes.
+     *
+     * @return File
+     */
+    public File getBodyFile() {
+        return bodyFile;
+    }
+
+    public void setBodyFile(File bodyFile) {
+        this.bodyFile = bodyFile;
+    }
+
+    /**
+     * Whole body, to be parsed as a document. Fails if it was spilled to disk, since only its first bytes
+     * are kept in memory.
+     *
+     * @return String
+     */
+    public String getCompleteResponse() {
+        if (bodyFile != null) {
+            throw new IllegalStateException("Response body of " + responseBytes + " bytes was spilled to " + bodyFile
+                    + " and only its first bytes are kept in memory; raise REST_RESPONSE_SPILL_THRESHOLD to parse it");
+        }
+        return response;
+    }
+
+    /**
+     * Checks if the whole body contains the given pattern, reading it from disk if it was spilled.
+     *
+     * @param pattern
+     * @return boolean
+     * @throws IOException
+     */
+    public boolean containsPattern(Pattern pattern) throws IOException {
+        if (bodyFile == null) {
+            return pattern.matcher(response).find();
+        }
+        return ResponseBodyCapture.find(bodyFile, pattern, Integer.valueOf(System.getProperty("REST_RESPONSE_MATCH_WINDOW", "65536")));
+    }
+
 }
\ No newline at end of file
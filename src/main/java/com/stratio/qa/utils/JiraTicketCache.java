@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.jayway.jsonpath.JsonPath;
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.Realm;
+import com.ning.http.client.Realm.AuthScheme;
+import com.ning.http.client.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Suite scoped cache of Jira ticket status, used to validate @tillfixed tags (Singleton).
+ * <p>
+ * Tickets of the features to be run are fetched with a single search query when the run starts, any other
+ * ticket is fetched on first use. Definitive answers, a status or an unknown ticket, are kept for JIRA_CACHE_TTL ms.
+ * Failures, as connection errors or any other answer, are not cached, so the ticket is asked for again.
+ * <p>
+ * Settings:
+ * usernamejira, passwordjira: Jira credentials. Validation is disabled when none of them nor JIRA_URL is set.
+ * JIRA_URL (default https://stratio.atlassian.net): Jira base url, may point to a local stub to run offline.
+ * JIRA_CACHE_TTL (default 3600000): ms a ticket status is trusted.
+ * JIRA_CACHE_FILE (default none): properties file keeping statuses among runs.
+ * JIRA_BATCH_SIZE (default 100): max tickets asked for in one search query.
+ */
+public enum JiraTicketCache {
+    INSTANCE;
+
+    private static final Pattern TILLFIXED = Pattern.compile("@tillfixed\\((.*?)\\)");
+
+    private static final String UNKNOWN = "";
+
+    private final Logger logger = LoggerFactory.getLogger(JiraTicketCache.class);
+
+    private final Map<String, Entry> statuses = new ConcurrentHashMap<>();
+
+    private boolean loaded = false;
+
+    /**
+     * Checks whether tickets can be validated.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return System.getProperty("usernamejira") != null || System.getProperty("passwordjira") != null
+                || System.getProperty("JIRA_URL") != null;
+    }
+
+    /**
+     * Get the status of a ticket, asking Jira only if it is not cached or has expired.
+     *
+     * @param ticket ticket key, as QA-123
+     * @return String, lowercased status name, or null if the ticket is unknown or Jira is unreachable
+     */
+    public String getStatus(String ticket) {
+        loadFile();
+        Entry entry = statuses.get(ticket);
+        if (entry == null || entry.isExpired()) {
+            entry = fetch(ticket);
+            if (entry == null) {
+                return null;
+            }
+            statuses.put(ticket, entry);
+            saveFile();
+        }
+        return UNKNOWN.equals(entry.status) ? null : entry.status;
+    }
+
+    /**
+     * Fetch with one search query every ticket not cached yet. Tickets left out of the answer are fetched one
+     * by one on first use.
+     *
+     * @param tickets ticket keys
+     */
+    public void prefetch(Collection<String> tickets) {
+        loadFile();
+        List<String> missing = tickets.stream().filter(t -> !statuses.containsKey(t) || statuses.get(t).isExpired())
+                .distinct().collect(Collectors.toList());
+        int batch = Integer.parseInt(System.getProperty("JIRA_BATCH_SIZE", "100"));
+        for (int i = 0; i < missing.size(); i += batch) {
+            List<String> keys = missing.subList(i, Math.min(i + batch, missing.size()));
+            try {
+                String jql = URLEncoder.encode("key in (" + String.join(",", keys) + ")", "UTF-8");
+                Response response = get("/rest/api/2/search?jql=" + jql + "&fields=status&maxResults=" + keys.size());
+                if (response.getStatusCode() != 200) {
+                    logger.warn("Jira search of {} tickets answered {}, they will be fetched one by one",
+                            keys.size(), response.getStatusCode());
+                    continue;
+                }
+                Map<String, String> found = parseSearch(response.getResponseBody());
+                for (Map.Entry<String, String> status : found.entrySet()) {
+                    statuses.put(status.getKey(), new Entry(status.getValue(), System.currentTimeMillis()));
+                }
+                logger.debug("Prefetched {} of {} Jira tickets", found.size(), keys.size());
+            } catch (Exception e) {
+                logger.warn("Jira search failed: {}", e.getMessage());
+            }
+        }
+        saveFile();
+    }
+
+    /**
+     * Prefetch the tickets of every @tillfixed tag found in features.
+     *
+     * @param featurePaths feature files or folders. Classpath resources are skipped.
+     */
+    public void prefetchFeatures(List<String> featurePaths) {
+        Set<String> tickets = new LinkedHashSet<>();
+        for (String featurePath : featurePaths) {
+            File file = new File(featurePath);
+            if (!file.exists()) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(file.toPath())) {
+                for (Path feature : files.filter(p -> p.toString().endsWith(".feature")).collect(Collectors.toList())) {
+                    tickets.addAll(findTickets(Files.readAllLines(feature, StandardCharsets.UTF_8)));
+                }
+            } catch (IOException e) {
+                logger.warn("Unable to look for Jira tickets in {}: {}", featurePath, e.getMessage());
+            }
+        }
+        if (!tickets.isEmpty()) {
+            prefetch(tickets);
+        }
+    }
+
+    /**
+     * Forget every cached status. The cache file is kept.
+     */
+    public synchronized void clear() {
+        statuses.clear();
+        loaded = false;
+    }
+
+    /**
+     * Get the tickets of the @tillfixed tags in some feature lines.
+     *
+     * @param lines feature lines
+     * @return Set of ticket keys
+     */
+    public static Set<String> findTickets(Collection<String> lines) {
+        Set<String> tickets = new LinkedHashSet<>();
+        for (String line : lines) {
+            Matcher matcher = TILLFIXED.matcher(line);
+            while (matcher.find()) {
+                tickets.add(matcher.group(1));
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * Get the status of each ticket in a Jira search answer.
+     *
+     * @param json search answer
+     * @return Map of ticket key to lowercased status name
+     */
+    public static Map<String, String> parseSearch(String json) {
+        List<String> keys = JsonPath.read(json, "$.issues[*].key");
+        List<String> names = JsonPath.read(json, "$.issues[*].fields.status.name");
+        Map<String, String> found = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size() && i < names.size(); i++) {
+            found.put(keys.get(i), names.get(i).toLowerCase());
+        }
+        return found;
+    }
+
+    private Entry fetch(String ticket) {
+        try {
+            Response response = get("/rest/api/2/issue/" + ticket + "?fields=status");
+            if (response.getStatusCode() == 200) {
+                String status = JsonPath.<String>read(response.getResponseBody(), "$.fields.status.name").toLowerCase();
+                return new Entry(status, System.currentTimeMillis());
+            } else if (response.getStatusCode() == 404) {
+                logger.error("Jira ticket {} does not exist", ticket);
+                return new Entry(UNKNOWN, System.currentTimeMillis());
+            }
+            logger.error("Rest API Jira answered {} for ticket {}", response.getStatusCode(), ticket);
+        } catch (Exception e) {
+            logger.error("Rest API Jira connection error for ticket {}: {}", ticket, e.getMessage());
+        }
+        return null;
+    }
+
+    private Response get(String endpoint) throws Exception {
+        URL url = new URL(System.getProperty("JIRA_URL", "https://stratio.atlassian.net"));
+        String protocol = url.getProtocol() + "://";
+        String port = url.getPort() == -1 ? "" : ":" + url.getPort();
+        AsyncHttpClient client = RestClientPool.INSTANCE.getClient(protocol, url.getHost(), port);
+        AsyncHttpClient.BoundRequestBuilder request = client.prepareGet(protocol + url.getHost() + port
+                + url.getPath().replaceAll("/$", "") + endpoint).setHeader("Content-Type", "application/json");
+
+        String user = System.getProperty("usernamejira");
+        if (user != null) {
+            request.setRealm(new Realm.RealmBuilder()
+                    .setPrincipal(user)
+                    .setPassword(System.getProperty("passwordjira"))
+                    .setUsePreemptiveAuth(true)
+                    .setScheme(AuthScheme.BASIC)
+                    .build());
+        }
+        return request.execute().get();
+    }
+
+    private synchronized void loadFile() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        String path = System.getProperty("JIRA_CACHE_FILE");
+        if (path == null || !new File(path).exists()) {
+            return;
+        }
+        Properties cached = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            cached.load(in);
+        } catch (IOException e) {
+            logger.warn("Unable to read Jira cache {}: {}", path, e.getMessage());
+            return;
+        }
+        for (String ticket : cached.stringPropertyNames()) {
+            String[] value = cached.getProperty(ticket).split("\\|", 2);
+            if (value.length == 2) {
+                Entry entry = new Entry(value[1], Long.parseLong(value[0]));
+                if (!entry.isExpired()) {
+                    statuses.putIfAbsent(ticket, entry);
+                }
+            }
+        }
+    }
+
+    private synchronized void saveFile() {
+        String path = System.getProperty("JIRA_CACHE_FILE");
+        if (path == null) {
+            return;
+        }
+        Properties cached = new Properties();
+        for (Map.Entry<String, Entry> entry : new ArrayList<>(statuses.entrySet())) {
+            cached.setProperty(entry.getKey(), entry.getValue().fetchedAt + "|" + entry.getValue().status);
+        }
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            cached.store(out, "Jira ticket status: fetch time|status");
+        } catch (IOException e) {
+            logger.warn("Unable to save Jira cache {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+
+        private final String status;
+
+        private final long fetchedAt;
+
+        private Entry(String status, long fetchedAt) {
+            this.status = status;
+            this.fetchedAt = fetchedAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - fetchedAt > Long.parseLong(System.getProperty("JIRA_CACHE_TTL", "3600000"));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, lock free latency histogram.
+ * <p>
+ * Values are recorded in microseconds. Values lower than 128 are kept exactly, higher ones are grouped in
+ * log-linear buckets keeping their 7 most significant bits, so any reported percentile is at most ~1.6% above
+ * the recorded value, whatever the magnitude, using a few KB of memory.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int EXACT_VALUES = SUB_BUCKETS * 2;
+
+    private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalValue = new AtomicLong();
+
+    private final AtomicLong maxValue = new AtomicLong();
+
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Microseconds to milliseconds, rounding up so sub-millisecond latencies are not reported as 0.
+     *
+     * @param micros value in microseconds
+     * @return long
+     */
+    public static long toMillis(long micros) {
+        return (micros + 999) / 1000;
+    }
+
+    /**
+     * Record a value in the histogram.
+     *
+     * @param value value in microseconds, negative values are recorded as 0
+     */
+    public void recordValue(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexFor(v));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(v);
+
+        long max = maxValue.get();
+        while (v > max && !maxValue.compareAndSet(max, v)) {
+            max = maxValue.get();
+        }
+        long min = minValue.get();
+        while (v < min && !minValue.compareAndSet(min, v)) {
+            min = minValue.get();
+        }
+    }
+
+    /**
+     * Number of recorded values.
+     *
+     * @return long
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Highest recorded value, exact.
+     *
+     * @return long
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Lowest recorded value, exact.
+     *
+     * @return long
+     */
+    public long getMinValue() {
+        return totalCount.get() == 0 ? 0 : minValue.get();
+    }
+
+    /**
+     * Mean of the recorded values.
+     *
+     * @return double
+     */
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * Value under which the given percentage of the recorded values fall.
+     *
+     * @param percentile percentile, from 0 to 100
+     * @return long
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    private static int indexFor(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < EXACT_VALUES) {
+            return index;
+        }
+        int shift = (index - EXACT_VALUES) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
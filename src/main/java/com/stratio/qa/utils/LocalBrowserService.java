@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless PhantomJS browser spawned on this host, used by @web scenarios instead of a selenium grid (Singleton).
+ * <p>
+ * The PhantomJS process is started on first use and serves the WebDriver protocol itself (GhostDriver), so new
+ * sessions take milliseconds and no grid is needed. Sessions are RemoteWebDriver ones, with screenshots and
+ * javascript, and are pooled as any other by {@link WebDriverPool}. The process is killed when the suite ends.
+ * <p>
+ * Settings:
+ * SELENIUM_LOCAL (default false): enable to run @web scenarios against the local browser, as phantomjs_local.
+ * PHANTOMJS_BINARY (default phantomjs): PhantomJS executable, looked up in the PATH unless absolute.
+ * PHANTOMJS_PORT (default 0): WebDriver port, any free one if 0.
+ * PHANTOMJS_START_TIMEOUT (default 10000): ms to wait for PhantomJS to accept sessions.
+ */
+public enum LocalBrowserService {
+    INSTANCE;
+
+    /**
+     * Browser and version given to scenarios run against the local browser.
+     */
+    public static final String BROWSER = "phantomjs_local";
+
+    private static final String LOG_FILE = "target/phantomjs.log";
+
+    private final Logger logger = LoggerFactory.getLogger(LocalBrowserService.class);
+
+    private Process process;
+
+    private String url;
+
+    /**
+     * Checks whether @web scenarios run against the local browser.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("SELENIUM_LOCAL", "false"));
+    }
+
+    /**
+     * Get the WebDriver endpoint of the local browser, starting it if it is not running.
+     *
+     * @return String
+     * @throws IllegalStateException if PhantomJS can not be started
+     */
+    public synchronized String url() {
+        if (process != null && process.isAlive()) {
+            return url;
+        }
+        String binary = System.getProperty("PHANTOMJS_BINARY", "phantomjs");
+        long timeout = Long.parseLong(System.getProperty("PHANTOMJS_START_TIMEOUT", "10000"));
+        int port = Integer.parseInt(System.getProperty("PHANTOMJS_PORT", "0"));
+        long start = System.nanoTime();
+        try {
+            if (port == 0) {
+                port = freePort();
+            }
+            File log = new File(LOG_FILE);
+            log.getParentFile().mkdirs();
+            process = new ProcessBuilder(binary, "--webdriver=127.0.0.1:" + port, "--ignore-ssl-errors=true")
+                    .redirectErrorStream(true).redirectOutput(log).start();
+        } catch (IOException e) {
+            throw new IllegalStateException("PhantomJS could not be started with " + binary + ": " + e.getMessage(), e);
+        }
+        url = "http://127.0.0.1:" + port;
+
+        boolean ready;
+        try {
+            ready = new PollingWait(timeout, PollingWait.MIN_INTERVAL, PollingWait.Backoff.FIXED, PollingWait.MIN_INTERVAL)
+                    .until(() -> !process.isAlive() || isReady());
+        } catch (Exception e) {
+            ready = false;
+        }
+        if (!process.isAlive()) {
+            int code = process.exitValue();
+            process = null;
+            throw new IllegalStateException("PhantomJS exited with code " + code + ", see " + LOG_FILE);
+        }
+        if (!ready) {
+            shutdown();
+            throw new IllegalStateException("PhantomJS did not accept sessions in " + timeout + " ms, see " + LOG_FILE);
+        }
+        logger.info("PhantomJS started at {} in {} ms", url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return url;
+    }
+
+    /**
+     * Kill the local browser, if it is running.
+     */
+    public synchronized void shutdown() {
+        if (process != null) {
+            logger.debug("Stopping PhantomJS at {}", url);
+            process.destroy();
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+            process = null;
+        }
+    }
+
+    private boolean isReady() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url + "/status").openConnection();
+            connection.setConnectTimeout(1000);
+            connection.setReadTimeout(1000);
+            try {
+                return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
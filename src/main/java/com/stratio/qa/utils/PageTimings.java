@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Navigation and resource timings of a page, as reported by the browser.
+ * <p>
+ * Times are ms from the start of the navigation (DNS lookup and connection are durations), and -1 when the
+ * browser did not report them. Resource bytes are transfer sizes, so cached resources and cross origin ones not
+ * allowing timings count as zero.
+ * <p>
+ * Settings:
+ * PAGE_TIMINGS (default true): disable to skip the collection of timings after each browse step.
+ * PAGE_TIMINGS_LOAD_WAIT (default 5000): ms to wait for the load event to finish before collecting timings.
+ */
+public final class PageTimings {
+
+    private static final String SCRIPT =
+            "var p = window.performance, t = p && p.timing;"
+            + "if (!t) { return null; }"
+            + "var since = function (end) { return end > 0 ? end - t.navigationStart : -1; };"
+            + "var resources = p.getEntriesByType ? p.getEntriesByType('resource') : [], bytes = 0;"
+            + "for (var i = 0; i < resources.length; i++) { bytes += resources[i].transferSize || 0; }"
+            + "return {url: location.href, complete: t.loadEventEnd > 0,"
+            + "  dns: t.domainLookupEnd - t.domainLookupStart, connect: t.connectEnd - t.connectStart,"
+            + "  firstByte: since(t.responseStart), domContentLoaded: since(t.domContentLoadedEventEnd),"
+            + "  load: since(t.loadEventEnd), resources: resources.length, resourceBytes: bytes};";
+
+    private final String url;
+
+    private final long dns;
+
+    private final long connect;
+
+    private final long firstByte;
+
+    private final long domContentLoaded;
+
+    private final long load;
+
+    private final long resources;
+
+    private final long resourceBytes;
+
+    public PageTimings(String url, long dns, long connect, long firstByte, long domContentLoaded, long load,
+                       long resources, long resourceBytes) {
+        this.url = url;
+        this.dns = dns;
+        this.connect = connect;
+        this.firstByte = firstByte;
+        this.domContentLoaded = domContentLoaded;
+        this.load = load;
+        this.resources = resources;
+        this.resourceBytes = resourceBytes;
+    }
+
+    /**
+     * Checks whether timings are collected after each browse step.
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("PAGE_TIMINGS", "true"));
+    }
+
+    /**
+     * Collect the timings of the page loaded in a browser, waiting for its load event to finish.
+     *
+     * @param driver browser
+     * @return PageTimings, or null if the browser does not report navigation timings
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public static PageTimings collect(JavascriptExecutor driver) throws Exception {
+        AtomicReference<Map<String, Object>> timings = new AtomicReference<>();
+        new PollingWait(Long.parseLong(System.getProperty("PAGE_TIMINGS_LOAD_WAIT", "5000")), PollingWait.MIN_INTERVAL,
+                PollingWait.Backoff.FIXED, PollingWait.MIN_INTERVAL).until(() -> {
+                    timings.set((Map<String, Object>) driver.executeScript(SCRIPT));
+                    return timings.get() == null || Boolean.TRUE.equals(timings.get().get("complete"));
+                });
+        Map<String, Object> map = timings.get();
+        if (map == null) {
+            return null;
+        }
+        return new PageTimings(String.valueOf(map.get("url")), number(map, "dns"), number(map, "connect"),
+                number(map, "firstByte"), number(map, "domContentLoaded"), number(map, "load"),
+                number(map, "resources"), number(map, "resourceBytes"));
+    }
+
+    private static long number(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getDns() {
+        return dns;
+    }
+
+    public long getConnect() {
+        return connect;
+    }
+
+    public long getFirstByte() {
+        return firstByte;
+    }
+
+    public long getDomContentLoaded() {
+        return domContentLoaded;
+    }
+
+    public long getLoad() {
+        return load;
+    }
+
+    public long getResources() {
+        return resources;
+    }
+
+    public long getResourceBytes() {
+        return resourceBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Page timings of " + url + ": DNS lookup " + dns + " ms, connection " + connect + " ms, first byte "
+                + firstByte + " ms, DOM content loaded " + domContentLoaded + " ms, load " + load + " ms, "
+                + resources + " resources, " + resourceBytes + " resource bytes";
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Stitches screenshot tiles one below another into a single PNG, written row by row.
+ * <p>
+ * Only one tile is decoded at a time, so peak memory is bounded by the size of a tile whatever the page length.
+ * The stitched image is as wide as the first tile; narrower tiles are padded with black.
+ */
+public final class PngStitcher {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private PngStitcher() {
+    }
+
+    /**
+     * Stitch PNG tiles.
+     *
+     * @param tiles       encoded tiles, top to bottom
+     * @param trailingCut rows to drop from the top of the last tile, as they repeat the previous one
+     * @param out         stream the stitched PNG is written to, left open
+     * @throws IOException
+     */
+    public static void stitch(List<byte[]> tiles, int trailingCut, OutputStream out) throws IOException {
+        if (tiles.isEmpty()) {
+            throw new IOException("No tiles to stitch");
+        }
+        int[] heights = new int[tiles.size()];
+        int width = 0;
+        long height = 0;
+        for (int i = 0; i < tiles.size(); i++) {
+            int[] size = readSize(tiles.get(i));
+            width = i == 0 ? size[0] : width;
+            heights[i] = size[1];
+            height += size[1];
+        }
+        int last = tiles.size() - 1;
+        int cut = Math.max(0, Math.min(trailingCut, heights[last]));
+        height -= cut;
+
+        DataOutputStream png = new DataOutputStream(out);
+        png.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt((int) height);
+        ihdr.writeByte(8); // bit depth
+        ihdr.writeByte(2); // truecolor
+        ihdr.writeByte(0); // deflate
+        ihdr.writeByte(0); // adaptive filtering
+        ihdr.writeByte(0); // no interlace
+        writeChunk(png, "IHDR", header.toByteArray(), header.size());
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream idat = new DeflaterOutputStream(new IdatOutputStream(png), deflater, CHUNK_SIZE)) {
+            int[] pixels = new int[width];
+            byte[] row = new byte[1 + width * 3];
+            for (int i = 0; i < tiles.size(); i++) {
+                BufferedImage tile = ImageIO.read(new ByteArrayInputStream(tiles.get(i)));
+                int tileWidth = Math.min(width, tile.getWidth());
+                for (int y = i == last ? cut : 0; y < tile.getHeight(); y++) {
+                    tile.getRGB(0, y, tileWidth, 1, pixels, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        int pixel = x < tileWidth ? pixels[x] : 0;
+                        row[1 + x * 3] = (byte) (pixel >> 16);
+                        row[2 + x * 3] = (byte) (pixel >> 8);
+                        row[3 + x * 3] = (byte) pixel;
+                    }
+                    idat.write(row);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        writeChunk(png, "IEND", new byte[0], 0);
+        png.flush();
+    }
+
+    private static int[] readSize(byte[] tile) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(tile))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unknown screenshot format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static void writeChunk(DataOutputStream png, String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, 0, length);
+        png.writeInt(length);
+        png.write(name);
+        png.write(data, 0, length);
+        png.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Splits the compressed rows into IDAT chunks.
+     */
+    private static final class IdatOutputStream extends OutputStream {
+
+        private final DataOutputStream png;
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        private int count = 0;
+
+        private IdatOutputStream(DataOutputStream png) {
+            this.png = png;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk(png, "IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
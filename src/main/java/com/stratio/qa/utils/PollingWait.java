@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls a condition until it holds or a deadline is reached.
+ * <p>
+ * The deadline is tracked with a monotonic clock, so the time spent evaluating the condition is accounted
+ * for, and no wait goes beyond the deadline. One last check is always made when the deadline is reached.
+ * <p>
+ * Settings:
+ * POLLING_BACKOFF (default fixed): fixed, exponential or jittered (exponential with random jitter).
+ * POLLING_MAX_INTERVAL (default 30000): ms cap for exponential and jittered intervals.
+ */
+public class PollingWait {
+
+    public enum Backoff {
+        FIXED, EXPONENTIAL, JITTERED;
+
+        /**
+         * Get the backoff set in POLLING_BACKOFF, ignoring case.
+         *
+         * @param value POLLING_BACKOFF value
+         * @return Backoff
+         * @throws IllegalArgumentException if the value is not a known backoff
+         */
+        public static Backoff parse(String value) {
+            for (Backoff backoff : values()) {
+                if (backoff.name().equalsIgnoreCase(value.trim())) {
+                    return backoff;
+                }
+            }
+            throw new IllegalArgumentException("Unknown POLLING_BACKOFF: " + value + ", expected one of "
+                    + Arrays.toString(values()).toLowerCase());
+        }
+    }
+
+    /**
+     * Lower bound for the interval between checks, so a zero wait does not spin.
+     */
+    public static final long MIN_INTERVAL = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(PollingWait.class);
+
+    private final long timeout;
+
+    private final long interval;
+
+    private final long maxInterval;
+
+    private final Backoff backoff;
+
+    private int attempts;
+
+    private long elapsed;
+
+    /**
+     * Wait with the backoff configured in system properties.
+     *
+     * @param timeout  ms to wait for the condition
+     * @param interval ms between the end of a check and the start of the next one
+     */
+    public PollingWait(long timeout, long interval) {
+        this(timeout, interval, Backoff.parse(System.getProperty("POLLING_BACKOFF", "fixed")),
+                Long.parseLong(System.getProperty("POLLING_MAX_INTERVAL", "30000")));
+    }
+
+    /**
+     * @param timeout     ms to wait for the condition
+     * @param interval    ms between the end of a check and the start of the next one (first one when backing off)
+     * @param backoff     how the interval grows between checks
+     * @param maxInterval ms cap for growing intervals
+     */
+    public PollingWait(long timeout, long interval, Backoff backoff, long maxInterval) {
+        this.timeout = timeout;
+        this.interval = Math.max(interval, MIN_INTERVAL);
+        this.backoff = backoff;
+        this.maxInterval = Math.max(maxInterval, this.interval);
+    }
+
+    /**
+     * Evaluate {@code condition} until it returns true or the timeout expires.
+     *
+     * @param condition check to be polled
+     * @return true if the condition held before the deadline
+     * @throws Exception exception thrown by the condition
+     */
+    public boolean until(Callable<Boolean> condition) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long nextInterval = interval;
+        attempts = 0;
+
+        while (true) {
+            attempts++;
+            boolean met = Boolean.TRUE.equals(condition.call());
+            long now = System.nanoTime();
+            elapsed = TimeUnit.NANOSECONDS.toMillis(now - start);
+            if (met) {
+                logger.debug("Condition met after {} attempts in {} ms", attempts, elapsed);
+                return true;
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                logger.debug("Condition not met after {} attempts in {} ms", attempts, elapsed);
+                return false;
+            }
+            logger.debug("Condition not met yet after {} attempts in {} ms", attempts, elapsed);
+            TimeUnit.NANOSECONDS.sleep(Math.min(TimeUnit.MILLISECONDS.toNanos(sleepTime(nextInterval)), remaining));
+            if (backoff != Backoff.FIXED) {
+                nextInterval = Math.min(nextInterval * 2, maxInterval);
+            }
+        }
+    }
+
+    private long sleepTime(long nextInterval) {
+        if (backoff == Backoff.JITTERED) {
+            return ThreadLocalRandom.current().nextLong(nextInterval / 2, nextInterval + 1);
+        }
+        return nextInterval;
+    }
+
+    /**
+     * Number of checks made by the last wait.
+     *
+     * @return int
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * ms elapsed until the last check of the last wait finished.
+     *
+     * @return long
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+}
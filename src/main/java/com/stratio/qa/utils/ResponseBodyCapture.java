@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Response body kept in memory up to a threshold and spilled to a temporary file above it.
+ * <p>
+ * Once spilled, only the first {@code threshold} bytes stay in memory, to be used in logs and reports,
+ * and pattern checks are evaluated over the file contents chunk by chunk.
+ */
+public class ResponseBodyCapture {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final int threshold;
+
+    private final int matchWindow;
+
+    private final ByteArrayOutputStream prefix;
+
+    private OutputStream spill;
+
+    private File file;
+
+    private long size;
+
+    private boolean discarded;
+
+    /**
+     * Default constructor.
+     *
+     * @param threshold   body bytes kept in memory before spilling to disk
+     * @param matchWindow max length of the text matched by pattern checks over spilled bodies
+     */
+    public ResponseBodyCapture(int threshold, int matchWindow) {
+        this.threshold = threshold;
+        this.matchWindow = matchWindow;
+        this.prefix = new ByteArrayOutputStream(Math.min(threshold, CHUNK_SIZE));
+    }
+
+    /**
+     * Builds a capture using REST_RESPONSE_SPILL_THRESHOLD (default 1MB) and REST_RESPONSE_MATCH_WINDOW
+     * (default 64KB) settings.
+     *
+     * @return ResponseBodyCapture
+     */
+    public static ResponseBodyCapture fromSettings() {
+        return new ResponseBodyCapture(Integer.valueOf(System.getProperty("REST_RESPONSE_SPILL_THRESHOLD", "1048576")),
+                Integer.valueOf(System.getProperty("REST_RESPONSE_MATCH_WINDOW", "65536")));
+    }
+
+    /**
+     * Checks if bodies must be captured through this class instead of kept in memory.
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("REST_RESPONSE_STREAMING", "false"));
+    }
+
+    /**
+     * Append a part of the body.
+     *
+     * @param bytes
+     * @throws IOException
+     */
+    public synchronized void write(byte[] bytes) throws IOException {
+        if (discarded) {
+            return;
+        }
+        size += bytes.length;
+        if (spill != null) {
+            spill.write(bytes);
+            return;
+        }
+        if (prefix.size() + bytes.length <= threshold) {
+            prefix.write(bytes);
+            return;
+        }
+        file = File.createTempFile("bdtresponse", ".body");
+        file.deleteOnExit();
+        spill = new BufferedOutputStream(new FileOutputStream(file));
+        prefix.writeTo(spill);
+        spill.write(bytes);
+        int remaining = threshold - prefix.size();
+        prefix.write(bytes, 0, remaining);
+    }
+
+    /**
+     * Flush and close the spill file, if any.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+    }
+
+    /**
+     * Close and delete the spill file, if any. Parts written afterwards are ignored.
+     *
+     * @throws IOException
+     */
+    public synchronized void discard() throws IOException {
+        discarded = true;
+        close();
+        if (file != null && !file.delete() && file.exists()) {
+            throw new IOException("Could not delete response body file " + file);
+        }
+    }
+
+    /**
+     * Whole body size, in bytes.
+     *
+     * @return long
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Temporary file holding the whole body, or null if it was small enough to be kept in memory.
+     *
+     * @return File
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Body, or its first bytes if it was spilled to disk.
+     *
+     * @return String
+     */
+    public String getPrefix() {
+        return new String(prefix.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Looks for a pattern in a body spilled to disk, reading it chunk by chunk. Consecutive chunks overlap
+     * {@code matchWindow} chars, so matches up to that length are found even across chunk boundaries.
+     *
+     * @param file    body file
+     * @param pattern pattern to look for
+     * @param matchWindow max length of a match
+     * @return boolean
+     * @throws IOException
+     */
+    public static boolean find(File file, Pattern pattern, int matchWindow) throws IOException {
+        char[] buffer = new char[CHUNK_SIZE];
+        StringBuilder window = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                window.append(buffer, 0, n);
+                Matcher matcher = pattern.matcher(window);
+                if (matcher.find()) {
+                    return true;
+                }
+                if (window.length() > matchWindow) {
+                    window.delete(0, window.length() - matchWindow);
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suite scoped registry of keep-alive REST clients (Singleton).
+ * <p>
+ * Clients are keyed by protocol, host and port, so every scenario hitting the same endpoint shares one
+ * connection pool. Cookies and headers are not kept by the client, they live in each scenario CommonG.
+ * <p>
+ * Settings:
+ * REST_CLIENT_POOLING (default true): disable to get one non pooled client per scenario.
+ * REST_CLIENT_MAX_CONNECTIONS_PER_HOST (default -1, unbounded): max open connections for each client.
+ * REST_CLIENT_IDLE_TIMEOUT (default 60000): ms an unused pooled connection is kept open.
+ */
+public enum RestClientPool {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(RestClientPool.class);
+
+    private final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Checks whether REST clients must be shared among scenarios.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("REST_CLIENT_POOLING", "true"));
+    }
+
+    /**
+     * Builds a client not bound to the pool, as used when pooling is disabled.
+     *
+     * @return AsyncHttpClient
+     */
+    public AsyncHttpClient newClient() {
+        return new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setAcceptAnyCertificate(true)
+                .setAllowPoolingConnections(false).build());
+    }
+
+    /**
+     * Get the pooled client for an endpoint, creating it on first use.
+     *
+     * @param protocol http:// or https://
+     * @param host     rest host
+     * @param port     rest port, as :port
+     * @return AsyncHttpClient
+     */
+    public AsyncHttpClient getClient(String protocol, String host, String port) {
+        String key = protocol + host + port;
+        PooledClient pooled = clients.get(key);
+        if (pooled == null || pooled.client.isClosed()) {
+            synchronized (clients) {
+                pooled = clients.get(key);
+                if (pooled == null || pooled.client.isClosed()) {
+                    logger.debug("Creating pooled REST client for {}", key);
+                    pooled = new PooledClient(new AsyncHttpClient(new AsyncHttpClientConfig.Builder()
+                            .setAcceptAnyCertificate(true)
+                            .setAllowPoolingConnections(true)
+                            .setMaxConnectionsPerHost(Integer.valueOf(System.getProperty("REST_CLIENT_MAX_CONNECTIONS_PER_HOST", "-1")))
+                            .setPooledConnectionIdleTimeout(Integer.valueOf(System.getProperty("REST_CLIENT_IDLE_TIMEOUT", "60000")))
+                            .build()));
+                    clients.put(key, pooled);
+                    created.incrementAndGet();
+                    return pooled.client;
+                }
+            }
+        }
+        reused.incrementAndGet();
+        pooled.reuses.incrementAndGet();
+        return pooled.client;
+    }
+
+    /**
+     * Number of pooled clients opened during the run.
+     *
+     * @return long
+     */
+    public long getCreatedClients() {
+        return created.get();
+    }
+
+    /**
+     * Number of times an already opened pooled client was handed out.
+     *
+     * @return long
+     */
+    public long getReusedClients() {
+        return reused.get();
+    }
+
+    /**
+     * Close every pooled client. Meant to be called once the suite is done.
+     */
+    public void shutdown() {
+        synchronized (clients) {
+            for (Map.Entry<String, PooledClient> entry : clients.entrySet()) {
+                logger.debug("Closing pooled REST client for {} after {} reuses", entry.getKey(), entry.getValue().reuses);
+                entry.getValue().client.close();
+            }
+            if (created.get() > 0) {
+                logger.info("REST client pool: {} clients created, {} reuses", created.get(), reused.get());
+            }
+            clients.clear();
+        }
+    }
+
+    /**
+     * A pooled client and the times it was handed out again, published together.
+     */
+    private static final class PooledClient {
+
+        private final AsyncHttpClient client;
+
+        private final AtomicLong reuses = new AtomicLong();
+
+        private PooledClient(AsyncHttpClient client) {
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.jayway.jsonpath.JsonPath;
+import org.hjson.JsonValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process wide LRU cache of the base documents read by CommonG.retrieveData (Singleton).
+ * <p>
+ * Entries are keyed by resource path and hold the file contents, plus its json form and json tree once
+ * requested, so each schema is read and parsed only once per run. Modifications work over copies of the
+ * tree, never over the cached one. Also used to resolve @{json.*} and @{file.*} placeholders. Its size is
+ * bounded by RETRIEVE_DATA_CACHE_SIZE (default 256, 0 disables the cache).
+ */
+public enum RetrievedDataCache {
+    INSTANCE;
+
+    private final int maxEntries = Integer.valueOf(System.getProperty("RETRIEVE_DATA_CACHE_SIZE", "256"));
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Get the cached contents of a resource.
+     *
+     * @param path resource path
+     * @return Entry, null if not cached
+     */
+    public synchronized Entry get(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Get the cached contents of a resource as CommonG.retrieveData returns them.
+     *
+     * @param path resource path
+     * @param type json|string
+     * @return String, null if not cached
+     */
+    public String lookup(String path, String type) {
+        Entry entry = get(path);
+        if (entry == null) {
+            return null;
+        }
+        return "json".equals(type) ? entry.getJson() : entry.getText();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object node) {
+        if (node instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> child : ((Map<String, Object>) node).entrySet()) {
+                copy.put(child.getKey(), copy(child.getValue()));
+            }
+            return copy;
+        }
+        if (node instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object child : (List<Object>) node) {
+                copy.add(copy(child));
+            }
+            return copy;
+        }
+        return node;
+    }
+
+    /**
+     * Cache the contents of a resource.
+     *
+     * @param path resource path
+     * @param text resource contents, without line breaks
+     * @return Entry
+     */
+    public synchronized Entry put(String path, String text) {
+        Entry entry = new Entry(text);
+        if (maxEntries > 0) {
+            entries.put(path, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Forget a resource, to be called whenever it is written during the run.
+     *
+     * @param path resource path
+     */
+    public synchronized void invalidate(String path) {
+        entries.remove(path);
+    }
+
+    /**
+     * Forget every resource.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Cached resource contents.
+     */
+    public static final class Entry {
+
+        private final String text;
+
+        private volatile String json;
+
+        private volatile Object tree;
+
+        private Entry(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Contents parsed as hjson and serialized as json, parsed on first use only.
+         *
+         * @return String
+         */
+        public String getJson() {
+            String result = json;
+            if (result == null) {
+                result = JsonValue.readHjson(text).asObject().toString();
+                json = result;
+            }
+            return result;
+        }
+
+        /**
+         * Copy of the json form parsed as a tree, to be modified at will. Parsed on first use only.
+         *
+         * @return Object, a Map or List tree
+         */
+        public Object copyTree() {
+            return copy(getTree());
+        }
+
+        private Object getTree() {
+            Object result = tree;
+            if (result == null) {
+                result = JsonPath.parse(getJson()).json();
+                tree = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Variables saved by steps, kept in scenario, feature or suite scope on concurrent maps.
+ * <p>
+ * Each thread has a context pointing to the current scenario and feature variables. Threads started by steps
+ * inherit the context of the thread starting them, so they see and save the same scenario and feature variables.
+ * Feature variables belong to a run of the feature, so runner instances running the same feature at once (as one
+ * per browser) keep their own. Scenario variables are dropped when the scenario ends, and feature variables when
+ * the feature run ends. Suite variables are shared by every thread of the run. Variables saved outside any
+ * feature, as the test class, are kept by the thread and copied to its child threads. Workers running single
+ * scenarios of a feature (see {@link #startWorkerScenario}) keep what they save in the scenario scope instead.
+ * <p>
+ * Lookups go from the narrowest scope to the widest: scenario, feature, thread and suite.
+ * ThreadProperty saves in VARIABLE_DEFAULT_SCOPE (scenario|feature|suite, default feature).
+ */
+public final class ScopedVariables {
+
+    /**
+     * Lifetime of a variable.
+     */
+    public enum Scope { SCENARIO, FEATURE, SUITE }
+
+    private static final Map<String, String> SUITE = new ConcurrentHashMap<>();
+
+    private static final InheritableThreadLocal<Context> CONTEXT = new InheritableThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context(new ConcurrentHashMap<>(), null, new ConcurrentHashMap<>(), false);
+        }
+
+        @Override
+        protected Context childValue(Context parent) {
+            return new Context(new ConcurrentHashMap<>(parent.thread), parent.feature, parent.scenario, parent.worker);
+        }
+    };
+
+    /**
+     * Default Constructor.
+     */
+    private ScopedVariables() {
+    }
+
+    /**
+     * Get the scope ThreadProperty saves in, from VARIABLE_DEFAULT_SCOPE.
+     *
+     * @return Scope
+     */
+    public static Scope getDefaultScope() {
+        return Scope.valueOf(System.getProperty("VARIABLE_DEFAULT_SCOPE", "feature").toUpperCase());
+    }
+
+    /**
+     * Save a variable. Feature variables are kept by the thread when it is not running any feature.
+     *
+     * @param scope scope
+     * @param key   name
+     * @param value value, not null
+     */
+    public static void set(Scope scope, String key, String value) {
+        Context context = CONTEXT.get();
+        if (scope == Scope.SUITE) {
+            SUITE.put(key, value);
+        } else if (scope == Scope.SCENARIO) {
+            context.scenario.put(key, value);
+        } else {
+            Map<String, String> features = featureVariables(context);
+            (features == null ? context.thread : features).put(key, value);
+        }
+    }
+
+    /**
+     * Save a variable in the default scope while running a feature, or else keep it in the thread, as the test
+     * class saved before any feature starts. Scenario workers save it in the scenario scope, unless the default
+     * scope is suite.
+     *
+     * @param key   name
+     * @param value value, not null
+     */
+    public static void setDefault(String key, String value) {
+        Context context = CONTEXT.get();
+        if (featureVariables(context) != null) {
+            set(getDefaultScope(), key, value);
+        } else if (context.worker) {
+            set(getDefaultScope() == Scope.SUITE ? Scope.SUITE : Scope.SCENARIO, key, value);
+        } else {
+            context.thread.put(key, value);
+        }
+    }
+
+    /**
+     * Get a variable from the narrowest scope holding it.
+     *
+     * @param key name
+     * @return String, null if not saved
+     */
+    public static String get(String key) {
+        Context context = CONTEXT.get();
+        String value = context.scenario.get(key);
+        if (value == null) {
+            Map<String, String> features = featureVariables(context);
+            value = features == null ? null : features.get(key);
+        }
+        if (value == null) {
+            value = context.thread.get(key);
+        }
+        return value == null ? SUITE.get(key) : value;
+    }
+
+    /**
+     * Get a copy of every variable seen by the current thread, but suite ones.
+     *
+     * @return Properties
+     */
+    public static Properties snapshot() {
+        Context context = CONTEXT.get();
+        Properties copy = new Properties();
+        copy.putAll(context.thread);
+        Map<String, String> features = featureVariables(context);
+        if (features != null) {
+            copy.putAll(features);
+        }
+        copy.putAll(context.scenario);
+        return copy;
+    }
+
+    /**
+     * Save every variable of a snapshot in the current thread.
+     *
+     * @param snapshot variables
+     */
+    public static void load(Properties snapshot) {
+        for (String key : snapshot.stringPropertyNames()) {
+            CONTEXT.get().thread.put(key, snapshot.getProperty(key));
+        }
+    }
+
+    /**
+     * Make the current thread a worker about to run a single scenario: its thread variables are replaced by the
+     * snapshot of the runner and its scenario variables dropped, so nothing saved by a previous scenario on the
+     * same thread is left.
+     *
+     * @param snapshot variables of the runner
+     */
+    public static void startWorkerScenario(Properties snapshot) {
+        Context context = CONTEXT.get();
+        context.worker = true;
+        context.feature = null;
+        context.thread.clear();
+        context.scenario = new ConcurrentHashMap<>();
+        load(snapshot);
+    }
+
+    /**
+     * Make the current thread start a run of a feature, with no feature variables. Only the threads started from
+     * this run share its variables.
+     *
+     * @param feature feature path
+     */
+    public static void enterFeature(String feature) {
+        CONTEXT.get().feature = new FeatureRun(feature);
+    }
+
+    /**
+     * Drop the variables of the feature run of the current thread, once every scenario of it is done. Threads
+     * started from the run stop seeing them too.
+     *
+     * @param feature feature path
+     */
+    public static void exitFeature(String feature) {
+        Context context = CONTEXT.get();
+        FeatureRun run = context.feature;
+        if (run != null && feature.equals(run.path)) {
+            run.running = false;
+            run.variables.clear();
+            context.feature = null;
+        }
+    }
+
+    /**
+     * Drop the scenario variables of the current thread.
+     */
+    public static void endScenario() {
+        CONTEXT.get().scenario = new ConcurrentHashMap<>();
+    }
+
+    private static Map<String, String> featureVariables(Context context) {
+        FeatureRun run = context.feature;
+        return run == null || !run.running ? null : run.variables;
+    }
+
+    private static final class FeatureRun {
+
+        private final String path;
+
+        private final Map<String, String> variables = new ConcurrentHashMap<>();
+
+        private volatile boolean running = true;
+
+        private FeatureRun(String path) {
+            this.path = path;
+        }
+    }
+
+    private static final class Context {
+
+        private final Map<String, String> thread;
+
+        private volatile FeatureRun feature;
+
+        private volatile Map<String, String> scenario;
+
+        private volatile boolean worker;
+
+        private Context(Map<String, String> thread, FeatureRun feature, Map<String, String> scenario, boolean worker) {
+            this.thread = thread;
+            this.feature = feature;
+            this.scenario = scenario;
+            this.worker = worker;
+        }
+    }
+}
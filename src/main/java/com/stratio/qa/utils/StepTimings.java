@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wall time of every step run, grouped by step definition pattern (Singleton).
+ * <p>
+ * Steps are timed by StepTimingAspect. Once the suite is done, the slowest patterns by total time are written
+ * with their call count and percentiles.
+ * <p>
+ * Settings:
+ * STEP_TIMINGS (default true): disable to skip timing steps.
+ * STEP_TIMINGS_FILE (default target/step-timings.txt): report file.
+ * STEP_TIMINGS_TOP (default 20): number of patterns in the report.
+ */
+public enum StepTimings {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(StepTimings.class);
+
+    private final Map<String, LatencyHistogram> timings = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether steps must be timed.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("STEP_TIMINGS", "true"));
+    }
+
+    /**
+     * Record a step run.
+     *
+     * @param pattern step definition pattern
+     * @param nanos   wall time of the run
+     */
+    public void record(String pattern, long nanos) {
+        timings.computeIfAbsent(pattern, p -> new LatencyHistogram()).recordValue(nanos / 1000);
+    }
+
+    /**
+     * Get the histogram of a pattern.
+     *
+     * @param pattern step definition pattern
+     * @return LatencyHistogram in microseconds, or null if no step matched it
+     */
+    public LatencyHistogram get(String pattern) {
+        return timings.get(pattern);
+    }
+
+    /**
+     * Forget every recorded run.
+     */
+    public void clear() {
+        timings.clear();
+    }
+
+    /**
+     * Build the report of the slowest patterns by total time, one per line.
+     *
+     * @param top max number of patterns
+     * @return String
+     */
+    public String report(int top) {
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<>(timings.entrySet());
+        entries.sort(Comparator.comparingDouble((Map.Entry<String, LatencyHistogram> e) -> total(e.getValue())).reversed());
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%12s %8s %10s %10s %10s %10s  %s%n", "total(ms)", "calls", "p50(ms)", "p90(ms)",
+                "p99(ms)", "max(ms)", "pattern"));
+        for (Map.Entry<String, LatencyHistogram> entry : entries.subList(0, Math.min(top, entries.size()))) {
+            LatencyHistogram histogram = entry.getValue();
+            report.append(String.format("%12.1f %8d %10.1f %10.1f %10.1f %10.1f  %s%n", total(histogram) / 1000,
+                    histogram.getTotalCount(), histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getMaxValue() / 1000.0, entry.getKey()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Write the report to STEP_TIMINGS_FILE. Meant to be called once the suite is done.
+     */
+    public void save() {
+        if (timings.isEmpty()) {
+            return;
+        }
+        File file = new File(System.getProperty("STEP_TIMINGS_FILE", "target/step-timings.txt"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            Files.write(file.toPath(), report(Integer.parseInt(System.getProperty("STEP_TIMINGS_TOP", "20")))
+                    .getBytes(StandardCharsets.UTF_8));
+            logger.info("Slowest steps report written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Unable to write slowest steps report {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static double total(LatencyHistogram histogram) {
+        return histogram.getMean() * histogram.getTotalCount();
+    }
+}
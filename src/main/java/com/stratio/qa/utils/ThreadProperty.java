@@ -18,12 +18,11 @@ package com.stratio.qa.utils;
 
 import java.util.Properties;
 
+/**
+ * Variables shared among steps and classes. Kept by {@link ScopedVariables}: saved in the feature scope by default
+ * while running a feature, and by the current thread otherwise.
+ */
 public final class ThreadProperty {
-    private static final ThreadLocal<Properties> PROPS = new ThreadLocal<Properties>() {
-        protected Properties initialValue() {
-            return new Properties();
-        }
-    };
 
     /**
      * Default Constructor.
@@ -38,7 +37,7 @@ public final class ThreadProperty {
      * @param value
      */
     public static void set(String key, String value) {
-        PROPS.get().setProperty(key, value);
+        ScopedVariables.setDefault(key, value);
     }
 
     /**
@@ -48,6 +47,24 @@ public final class ThreadProperty {
      * @return String
      */
     public static String get(String key) {
-        return PROPS.get().getProperty(key);
+        return ScopedVariables.get(key);
+    }
+
+    /**
+     * Get a copy of every property of the current thread, to be handed to another thread.
+     *
+     * @return Properties
+     */
+    public static Properties snapshot() {
+        return ScopedVariables.snapshot();
+    }
+
+    /**
+     * Set every property of a snapshot in the current thread.
+     *
+     * @param snapshot
+     */
+    public static void load(Properties snapshot) {
+        ScopedVariables.load(snapshot);
     }
 }
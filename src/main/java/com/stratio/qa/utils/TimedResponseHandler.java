@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.AsyncCompletionHandlerBase;
+import com.ning.http.client.HttpResponseBodyPart;
+import com.ning.http.client.HttpResponseStatus;
+import com.ning.http.client.Response;
+
+import java.io.IOException;
+
+/**
+ * Response handler keeping track of when a request was sent, when its first byte was received and when it
+ * was completed.
+ * <p>
+ * If built with a {@link ResponseBodyCapture}, body parts are handed to it instead of being accumulated
+ * in memory by the client.
+ */
+public class TimedResponseHandler extends AsyncCompletionHandlerBase {
+
+    private final long requestStart = System.currentTimeMillis();
+
+    private final long startNanos = System.nanoTime();
+
+    private final long requestBytes;
+
+    private final ResponseBodyCapture capture;
+
+    private volatile long firstByteNanos = -1;
+
+    private volatile long completedNanos = -1;
+
+    /**
+     * Default constructor, to be built right before executing the request.
+     *
+     * @param requestBytes size of the request body
+     */
+    public TimedResponseHandler(long requestBytes) {
+        this(requestBytes, null);
+    }
+
+    /**
+     * Constructor streaming the response body to a capture.
+     *
+     * @param requestBytes size of the request body
+     * @param capture      where to stream the body to, null to keep it in memory
+     */
+    public TimedResponseHandler(long requestBytes, ResponseBodyCapture capture) {
+        this.requestBytes = requestBytes;
+        this.capture = capture;
+    }
+
+    @Override
+    public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+        if (firstByteNanos < 0) {
+            firstByteNanos = System.nanoTime();
+        }
+        return super.onStatusReceived(status);
+    }
+
+    @Override
+    public STATE onBodyPartReceived(HttpResponseBodyPart content) throws Exception {
+        if (capture == null) {
+            return super.onBodyPartReceived(content);
+        }
+        capture.write(content.getBodyPartBytes());
+        return STATE.CONTINUE;
+    }
+
+    @Override
+    public Response onCompleted(Response response) throws Exception {
+        completedNanos = System.nanoTime();
+        if (capture != null) {
+            capture.close();
+        }
+        return super.onCompleted(response);
+    }
+
+    /**
+     * Delete the streamed body, if any, when it is not going to be filled into a response.
+     *
+     * @throws IOException
+     */
+    public void discardBody() throws IOException {
+        if (capture != null) {
+            capture.discard();
+        }
+    }
+
+    /**
+     * Copy the collected timings, and the streamed body if any, to a response.
+     *
+     * @param response
+     */
+    public void fill(HttpResponse response) {
+        if (capture != null) {
+            response.setResponse(capture.getPrefix());
+            response.setBodyFile(capture.getFile());
+            response.setResponseBytes(capture.getSize());
+        }
+        long end = completedNanos < 0 ? System.nanoTime() : completedNanos;
+        response.setRequestStart(requestStart);
+        response.setRequestBytes(requestBytes);
+        response.setTotalTime((end - startNanos) / 1000000);
+        response.setTimeToFirstByte(firstByteNanos < 0 ? response.getTotalTime() : (firstByteNanos - startNanos) / 1000000);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Suite scoped pool of selenium sessions, reused among @web and @mobile scenarios (Singleton).
+ * <p>
+ * Sessions are keyed by browser and version, as chrome_58. When a scenario ends its session is reset (windows
+ * other than the one it was created with closed, frames left, local and session storage cleared, cookies
+ * deleted, blank page loaded) and kept for the next scenario asking for the same browser. Sessions are quit after
+ * an error, once they have been used WEBDRIVER_MAX_USES times, or when they can not be reset.
+ * <p>
+ * Storage and cookies are cleared for the last loaded site only, as WebDriver does not reach other origins, so
+ * logins on any other site carry over to the next scenario. Pooling is therefore opt-in, for suites whose
+ * scenarios stay on one site or do not depend on a clean browser.
+ * <p>
+ * Settings:
+ * WEBDRIVER_POOLING (default false): enable to share sessions among scenarios.
+ * WEBDRIVER_MAX_USES (default 20): scenarios run by a session before it is quit.
+ */
+public enum WebDriverPool {
+    INSTANCE;
+
+    private final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final Map<String, Deque<RemoteWebDriver>> idle = new HashMap<>();
+
+    private final Map<RemoteWebDriver, Session> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Checks whether selenium sessions must be shared among scenarios.
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return Boolean.valueOf(System.getProperty("WEBDRIVER_POOLING", "false"));
+    }
+
+    /**
+     * Get an idle session for a browser, or a new one if there is none still alive.
+     *
+     * @param browser browser and version, as chrome_58
+     * @param factory session builder
+     * @return RemoteWebDriver
+     */
+    public RemoteWebDriver acquire(String browser, Supplier<RemoteWebDriver> factory) {
+        RemoteWebDriver driver;
+        while ((driver = poll(browser)) != null) {
+            if (isAlive(driver)) {
+                sessions.get(driver).uses++;
+                reused.incrementAndGet();
+                logger.debug("Reusing selenium session {} for {}", driver.getSessionId(), browser);
+                return driver;
+            }
+            discard(driver);
+        }
+        driver = factory.get();
+        Session session = new Session(browser, driver.getWindowHandle());
+        session.uses++;
+        sessions.put(driver, session);
+        created.incrementAndGet();
+        logger.debug("Created selenium session {} for {}", driver.getSessionId(), browser);
+        return driver;
+    }
+
+    /**
+     * Hand a session back once its scenario is done.
+     *
+     * @param driver session
+     * @param failed whether the scenario failed, so the session is not to be trusted
+     */
+    public void release(RemoteWebDriver driver, boolean failed) {
+        Session session = sessions.get(driver);
+        if (session == null) {
+            quit(driver);
+            return;
+        }
+        int maxUses = Integer.parseInt(System.getProperty("WEBDRIVER_MAX_USES", "20"));
+        if (failed || session.uses >= maxUses || !reset(driver, session)) {
+            logger.debug("Recycling selenium session {} after {} uses{}", driver.getSessionId(), session.uses,
+                    failed ? " and an error" : "");
+            discard(driver);
+            return;
+        }
+        synchronized (idle) {
+            idle.computeIfAbsent(session.browser, b -> new ArrayDeque<>()).push(driver);
+        }
+    }
+
+    /**
+     * Number of sessions started during the run.
+     *
+     * @return long
+     */
+    public long getCreatedSessions() {
+        return created.get();
+    }
+
+    /**
+     * Number of times an idle session was handed out.
+     *
+     * @return long
+     */
+    public long getReusedSessions() {
+        return reused.get();
+    }
+
+    /**
+     * Quit every idle session. Meant to be called once the suite is done.
+     */
+    public void shutdown() {
+        List<RemoteWebDriver> drivers = new ArrayList<>();
+        synchronized (idle) {
+            for (Deque<RemoteWebDriver> browserSessions : idle.values()) {
+                drivers.addAll(browserSessions);
+            }
+            idle.clear();
+        }
+        for (RemoteWebDriver driver : drivers) {
+            discard(driver);
+        }
+        if (created.get() > 0) {
+            logger.info("Selenium session pool: {} sessions created, {} reuses", created.get(), reused.get());
+        }
+    }
+
+    private RemoteWebDriver poll(String browser) {
+        synchronized (idle) {
+            Deque<RemoteWebDriver> browserSessions = idle.get(browser);
+            return browserSessions == null ? null : browserSessions.poll();
+        }
+    }
+
+    private boolean isAlive(RemoteWebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            logger.debug("Selenium session {} is gone: {}", driver.getSessionId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean reset(RemoteWebDriver driver, Session session) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            if (!handles.contains(session.window)) {
+                logger.debug("Selenium session {} lost its original window", driver.getSessionId());
+                return false;
+            }
+            for (String handle : handles) {
+                if (!handle.equals(session.window)) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(session.window);
+            driver.switchTo().defaultContent();
+            try {
+                driver.executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+            } catch (Exception e) {
+                logger.debug("Unable to clear web storage: {}", e.getMessage());
+            }
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.warn("Unable to reset selenium session {}: {}", driver.getSessionId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(RemoteWebDriver driver) {
+        sessions.remove(driver);
+        quit(driver);
+    }
+
+    private void quit(RemoteWebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            logger.debug("Unable to quit selenium session {}: {}", driver.getSessionId(), e.getMessage());
+        }
+    }
+
+    private static final class Session {
+
+        private final String browser;
+
+        private final String window;
+
+        private int uses = 0;
+
+        private Session(String browser, String window) {
+            this.browser = browser;
+            this.window = window;
+        }
+    }
+}
@@ -19,7 +19,11 @@ package com.stratio.qa.aspects;
 import com.stratio.qa.exceptions.IncludeException;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -68,4 +72,81 @@ public class IncludeTagAspectTest {
 
         assertThatExceptionOfType(Exception.class).isThrownBy(() -> inctag.parseLines(lines, path));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIncludeCycle() throws Exception {
+        File dir = Files.createTempDirectory("includes").toFile();
+        Files.write(new File(dir, "first.feature").toPath(), Arrays.asList("Feature: first", "",
+                "  @include(feature: second.feature,scenario: Second)", "  Scenario: First", "    Given a step"),
+                StandardCharsets.UTF_8);
+        Files.write(new File(dir, "second.feature").toPath(), Arrays.asList("Feature: second", "",
+                "  @include(feature: first.feature,scenario: First)", "  Scenario: Second", "    Given a step"),
+                StandardCharsets.UTF_8);
+        String path = dir.getPath() + "/";
+
+        assertThatExceptionOfType(IncludeException.class)
+                .isThrownBy(() -> inctag.featureStepConverter(path + "first.feature", "First", null))
+                .withMessageContaining("Include cycle");
+    }
+
+    @Test
+    public void testNestedInclude() throws Exception {
+        File dir = Files.createTempDirectory("includes").toFile();
+        Files.write(new File(dir, "nested.feature").toPath(), Arrays.asList("Feature: nested", "",
+                "  Scenario: Base", "    Given a base step", "",
+                "  @include(feature: nested.feature,scenario: Base)", "  Scenario: Composite", "    Given a composite step"),
+                StandardCharsets.UTF_8);
+
+        String steps = inctag.featureStepConverter(dir.getPath() + "/nested.feature", "Composite", null);
+
+        assertThat(steps.indexOf("a base step")).as("Nested scenario steps go first").isNotNegative()
+                .isLessThan(steps.indexOf("a composite step"));
+    }
+
+    @Test
+    public void testIncludedBodyEndsAtKeywordsAndTags() throws Exception {
+        File dir = Files.createTempDirectory("includes").toFile();
+        Files.write(new File(dir, "body.feature").toPath(), Arrays.asList("Feature: body", "",
+                "  Scenario: Included", "    Given I run the scenario setup", "    And I send:", "      \"\"\"",
+                "      @{IP.eth0}", "      \"\"\"", "",
+                "  @web @tillfixed(QA-1)", "  Scenario: Next", "    Given a next step"),
+                StandardCharsets.UTF_8);
+
+        String steps = inctag.featureStepConverter(dir.getPath() + "/body.feature", "Included", null);
+
+        assertThat(steps).contains("I run the scenario setup", "@{IP.eth0}").doesNotContain("@web", "a next step");
+    }
+
+    @Test
+    public void testNestedIncludesKeepTagOrder() throws Exception {
+        File dir = Files.createTempDirectory("includes").toFile();
+        Files.write(new File(dir, "order.feature").toPath(), Arrays.asList("Feature: order", "",
+                "  Scenario: One", "    Given step one", "",
+                "  Scenario: Two", "    Given step two", "",
+                "  @include(feature: order.feature,scenario: One)", "  @include(feature: order.feature,scenario: Two)",
+                "  Scenario: Both", "    Given step both"),
+                StandardCharsets.UTF_8);
+
+        String steps = inctag.featureStepConverter(dir.getPath() + "/order.feature", "Both", null);
+
+        assertThat(steps.indexOf("step one")).isNotNegative().isLessThan(steps.indexOf("step two"));
+        assertThat(steps.indexOf("step two")).isLessThan(steps.indexOf("step both"));
+    }
+
+    @Test
+    public void testNestedIncludeWithParams() throws Exception {
+        File dir = Files.createTempDirectory("includes").toFile();
+        Files.write(new File(dir, "greet.feature").toPath(), Arrays.asList("Feature: greet", "",
+                "  Scenario Outline: Greet", "    Given I greet <name>", "", "    Examples:", "    | name |", "    | x    |", "",
+                "  @include(feature: greet.feature,scenario: Greet,params: [name: world])", "  Scenario: Composite",
+                "    Given a composite step", "",
+                "  @include(feature: greet.feature,scenario: Greet)", "  Scenario: Unset", "    Given an unset step"),
+                StandardCharsets.UTF_8);
+        String path = dir.getPath() + "/greet.feature";
+
+        assertThat(inctag.featureStepConverter(path, "Composite", null)).contains("I greet world").doesNotContain("<name>");
+        assertThatExceptionOfType(IncludeException.class)
+                .isThrownBy(() -> inctag.featureStepConverter(path, "Unset", null))
+                .withMessageContaining("Parameters were not given");
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.aspects;
+
+import com.stratio.qa.utils.ThreadProperty;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlaceholderTemplateTest {
+
+    @Test
+    public void testFeatureTextsAreCachedOnce() {
+        PlaceholderTemplate first = PlaceholderTemplate.compile("cached ${TEMPLATE_TEST_VAR} text", '$');
+        int size = PlaceholderTemplate.cacheSize();
+
+        assertThat(PlaceholderTemplate.compile("cached ${TEMPLATE_TEST_VAR} text", '$')).isSameAs(first);
+        assertThat(PlaceholderTemplate.cacheSize()).isEqualTo(size);
+        assertThat(first.getSegments()).hasSize(3);
+        assertThat(first.getSegments().get(1).getName()).isEqualTo("TEMPLATE_TEST_VAR");
+    }
+
+    @Test
+    public void testReplacedTextsAreNotCached() throws Exception {
+        ReplacementAspect aspect = new ReplacementAspect();
+        String step = "id !{templateTestId} saved at @{IP.templateTestMissing";
+        ThreadProperty.set("templateTestId", "first");
+        aspect.replacedElement(step, null);
+        int size = PlaceholderTemplate.cacheSize();
+
+        for (int i = 0; i < 5; i++) {
+            ThreadProperty.set("templateTestId", "id-" + i);
+            assertThat(aspect.replacedElement(step, null)).isEqualTo("id id-" + i + " saved at @{IP.templateTestMissing");
+        }
+        assertThat(PlaceholderTemplate.cacheSize()).isEqualTo(size);
+    }
+}
@@ -16,6 +16,7 @@
 package com.stratio.qa.aspects;
 
 import com.stratio.qa.exceptions.NonReplaceableException;
+import com.stratio.qa.utils.RetrievedDataCache;
 import com.stratio.qa.utils.ThreadProperty;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.testng.annotations.Test;
@@ -116,4 +117,51 @@ public class ReplacementAspectTest {
         assertThat(repAspect.replaceReflectionPlaceholders(repAspect.replaceEnvironmentPlaceholders("${STRATIOBDD_ENV2}:!{STRATIOBDD_LOCAL1}", pjp), pjp))
                 .as("Unexpected replacement").isEqualTo("aa:LOCAL");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void replaceCompiledTemplateTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        ProceedingJoinPoint pjp = null;
+        ReplacementAspect repAspect = new ReplacementAspect();
+        System.setProperty("STRATIOBDD_ENV6", "bb");
+
+        PlaceholderTemplate template = PlaceholderTemplate.compile("|${STRATIOBDD_ENV6}|:|${STRATIOBDD_ENV6.toUpper}|", '$');
+        assertThat(PlaceholderTemplate.compile("|${STRATIOBDD_ENV6}|:|${STRATIOBDD_ENV6.toUpper}|", '$')).isSameAs(template);
+        assertThat(template.getSegments()).hasSize(5);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(repAspect.replaceEnvironmentPlaceholders("|${STRATIOBDD_ENV6}|:|${STRATIOBDD_ENV6.toUpper}|", pjp))
+                    .as("Unexpected replacement").isEqualTo("|bb|:|BB|");
+        }
+        System.setProperty("STRATIOBDD_ENV6", "cc");
+        assertThat(repAspect.replaceEnvironmentPlaceholders("|${STRATIOBDD_ENV6}|:|${STRATIOBDD_ENV6.toUpper}|", pjp))
+                .as("Values must not be cached").isEqualTo("|cc|:|CC|");
+    }
+
+    @Test
+    public void replaceNestedPlaceholdersTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        ProceedingJoinPoint pjp = null;
+        ReplacementAspect repAspect = new ReplacementAspect();
+        System.setProperty("STRATIOBDD_ENV7", "${STRATIOBDD_ENV8}-x");
+        System.setProperty("STRATIOBDD_ENV8", "dd");
+        ThreadProperty.set("STRATIOBDD_LOCAL2", "LOCAL");
+
+        assertThat(repAspect.replaceEnvironmentPlaceholders("${STRATIOBDD_ENV7}", pjp)).isEqualTo("dd-x");
+        assertThat(repAspect.replacedElement("!{STRATIOBDD_LOCAL2}:${STRATIOBDD_ENV8} ${ unclosed", pjp)).isEqualTo("LOCAL:dd ${ unclosed");
+    }
+
+    @Test
+    public void replaceCachedCodePlaceholderTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        ProceedingJoinPoint pjp = null;
+        ReplacementAspect repAspect = new ReplacementAspect();
+        RetrievedDataCache.INSTANCE.put("placeholderCached.conf", "cached");
+
+        assertThat(repAspect.replaceCodePlaceholders("@{FILE.placeholderCached.conf}", pjp)).isEqualTo("cached");
+
+        RetrievedDataCache.INSTANCE.invalidate("placeholderCached.conf");
+        assertThat(repAspect.replaceCodePlaceholders("@{FILE.placeholderCached.conf}", pjp))
+                .isEqualTo("ERR! File not found: placeholderCached.conf");
+    }
+}
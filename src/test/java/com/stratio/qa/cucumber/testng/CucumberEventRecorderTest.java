@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import org.mockito.InOrder;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class CucumberEventRecorderTest {
+
+    @Test
+    public void testEventsAreReplayedInOrder() {
+        CucumberEventRecorder recorder = new CucumberEventRecorder();
+        recorder.formatter().uri("first.feature");
+        recorder.reporter().write("second");
+        recorder.formatter().eof();
+
+        Formatter formatter = mock(Formatter.class);
+        Reporter reporter = mock(Reporter.class);
+        recorder.replay(formatter, reporter);
+
+        InOrder order = inOrder(formatter, reporter);
+        order.verify(formatter).uri("first.feature");
+        order.verify(reporter).write("second");
+        order.verify(formatter).eof();
+        verifyNoMoreInteractions(formatter, reporter);
+    }
+
+    @Test
+    public void testEventsAreReplayedOnce() {
+        CucumberEventRecorder recorder = new CucumberEventRecorder();
+        recorder.formatter().eof();
+        recorder.replay(mock(Formatter.class), mock(Reporter.class));
+
+        Formatter formatter = mock(Formatter.class);
+        Reporter reporter = mock(Reporter.class);
+        recorder.replay(formatter, reporter);
+
+        verifyZeroInteractions(formatter, reporter);
+    }
+
+    @Test
+    public void testReplayedEventsKeepTheirTime() throws InterruptedException {
+        CucumberEventRecorder recorder = new CucumberEventRecorder();
+        long before = System.currentTimeMillis();
+        recorder.formatter().eof();
+        long after = System.currentTimeMillis();
+        Thread.sleep(50);
+
+        Formatter formatter = mock(Formatter.class);
+        AtomicLong replayed = new AtomicLong();
+        doAnswer(invocation -> {
+            replayed.set(CucumberEventRecorder.eventTime());
+            return null;
+        }).when(formatter).eof();
+        recorder.replay(formatter, mock(Reporter.class));
+
+        assertThat(replayed.get()).isBetween(before, after);
+        assertThat(CucumberEventRecorder.eventTime()).isGreaterThan(after);
+    }
+
+    @Test
+    public void testResultsAreKept() {
+        CucumberEventRecorder recorder = new CucumberEventRecorder();
+        Result before = mock(Result.class);
+        Result step = mock(Result.class);
+        recorder.reporter().before(mock(Match.class), before);
+        recorder.reporter().result(step);
+
+        assertThat(recorder.stepResults()).containsExactly(step);
+        assertThat(recorder.hookResults()).containsExactly(before);
+    }
+}
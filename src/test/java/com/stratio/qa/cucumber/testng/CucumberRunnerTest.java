@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import com.stratio.qa.specs.CommonG;
+import com.stratio.qa.utils.EvidenceWriter;
+import com.stratio.qa.utils.ThreadProperty;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CucumberRunnerTest {
+
+    private String evidence(Properties properties, String scenario, String dataSet) {
+        CucumberRunner.startWorkerScenario(properties, "Parallel feature", scenario, dataSet);
+        RemoteWebDriver driver = mock(RemoteWebDriver.class, RETURNS_DEEP_STUBS);
+        when(driver.getPageSource()).thenReturn("<html></html>");
+        return new CommonG().captureEvidence(driver, "htmlSource");
+    }
+
+    @Test
+    public void testParallelEvidencesAreNamedAfterTheirScenario() throws Exception {
+        ThreadProperty.set("class", "ParallelIT");
+        ThreadProperty.set("browser", "chrome_58");
+        Properties properties = ThreadProperty.snapshot();
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            Future<String> first = pool.submit(() -> evidence(properties, "First scenario", "[a, 1]"));
+            Future<String> second = pool.submit(() -> evidence(properties, "Second scenario", ""));
+
+            assertThat(first.get()).contains("ParallelIT/Parallel_feature.First_scenario/chrome_58-");
+            assertThat(second.get()).contains("ParallelIT/Parallel_feature.Second_scenario/chrome_58")
+                    .doesNotContain("chrome_58-");
+        } finally {
+            pool.shutdownNow();
+            EvidenceWriter.INSTANCE.flush();
+        }
+    }
+
+    @Test
+    public void testWorkerScenariosDoNotSeeEachOtherVariables() throws Exception {
+        ThreadProperty.set("runnerVariable", "runner");
+        Properties properties = ThreadProperty.snapshot();
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            pool.submit(() -> {
+                CucumberRunner.startWorkerScenario(properties, "Worker feature", "First scenario", "");
+                ThreadProperty.set("savedByFirst", "1");
+                ThreadProperty.set("runnerVariable", "overwritten");
+            }).get();
+            Future<String[]> second = pool.submit(() -> {
+                CucumberRunner.startWorkerScenario(properties, "Worker feature", "Second scenario", "");
+                return new String[]{ThreadProperty.get("savedByFirst"), ThreadProperty.get("runnerVariable")};
+            });
+
+            assertThat(second.get()).containsExactly(null, "runner");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
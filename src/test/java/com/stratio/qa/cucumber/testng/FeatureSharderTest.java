@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeatureSharderTest {
+
+    @Test
+    public void testCountSteps() {
+        int steps = FeatureSharder.countSteps(Arrays.asList(
+                "Feature: sample",
+                "  Background:",
+                "    Given a background step",
+                "  Scenario: plain",
+                "    Given a step",
+                "    | a | table |",
+                "    Then another step",
+                "  Scenario Outline: outline",
+                "    Given a step with <value>",
+                "    And another step",
+                "    Examples:",
+                "    | value |",
+                "    | 1     |",
+                "    | 2     |"));
+
+        assertThat(steps).isEqualTo(7);
+    }
+
+    @Test
+    public void testWeightsWithoutHistoryUseSteps() {
+        Map<String, Integer> steps = new HashMap<>();
+        steps.put("known.feature", 10);
+        steps.put("new.feature", 5);
+        Properties history = new Properties();
+        history.setProperty("known.feature", "20000");
+
+        Map<String, Double> weights = FeatureSharder.weights(steps, history);
+
+        assertThat(weights.get("known.feature")).isEqualTo(20000);
+        assertThat(weights.get("new.feature")).isEqualTo(10000);
+    }
+
+    @Test
+    public void testAssignBalancesShards() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a.feature", 70.0);
+        weights.put("b.feature", 40.0);
+        weights.put("c.feature", 30.0);
+        weights.put("d.feature", 20.0);
+        weights.put("e.feature", 20.0);
+
+        Map<String, Integer> shards = FeatureSharder.assign(weights, 2);
+
+        assertThat(shards).containsEntry("a.feature", 0).containsEntry("b.feature", 1).containsEntry("c.feature", 1)
+                .containsEntry("d.feature", 0).containsEntry("e.feature", 1);
+    }
+
+    @Test
+    public void testFilterAssignsEveryPathToOneShard() throws IOException {
+        Path features = Files.createTempDirectory("sharder").resolve("features");
+        Files.createDirectories(features);
+        Files.write(features.resolve("a.feature"), Arrays.asList("Feature: a", "  Scenario: a", "    Given a step",
+                "    Then another step"), StandardCharsets.UTF_8);
+        Files.write(features.resolve("b.feature"), Arrays.asList("Feature: b", "  Scenario: b", "    Given a step"),
+                StandardCharsets.UTF_8);
+        String selected = features.resolve("b.feature") + ":3";
+        List<String> paths = Arrays.asList("classpath:features/a.feature", selected);
+
+        List<String> first = new FeatureSharder(0, 2, features.toFile(), new Properties()).filter(paths);
+        List<String> second = new FeatureSharder(1, 2, features.toFile(), new Properties()).filter(paths);
+
+        assertThat(first).containsExactly("classpath:features/a.feature");
+        assertThat(second).containsExactly(selected);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import com.stratio.qa.processor.GlueIndexProcessor;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GlueIndexTest {
+
+    @Test
+    public void testIndexedGlueAndFormatters() throws Exception {
+        File dir = Files.createTempDirectory("glueindex").toFile();
+        File glue = new File(dir, GlueIndexProcessor.GLUE_INDEX);
+        glue.getParentFile().mkdirs();
+        Files.write(glue.toPath(), "classpath:com/stratio/sample/testsAT/specs/sub\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(dir, GlueIndexProcessor.FORMATTERS_INDEX).toPath(),
+                "com.stratio.qa.utils.SampleFormatter\ncom.stratio.other.OtherFormatter\n".getBytes(StandardCharsets.UTF_8));
+
+        GlueIndex index = new GlueIndex(new URLClassLoader(new URL[]{dir.toURI().toURL()}, null));
+
+        assertThat(index.isAvailable()).isTrue();
+        assertThat(index.filterGlue(Arrays.asList("classpath:com/stratio/sample/testsAT/specs", "classpath:com/stratio/missing/testsAT/specs")))
+                .containsExactly("classpath:com/stratio/sample/testsAT/specs");
+        assertThat(index.getFormatters("com.stratio.qa.utils")).containsExactly("com.stratio.qa.utils.SampleFormatter");
+    }
+
+    @Test
+    public void testMissingIndex() throws Exception {
+        File dir = Files.createTempDirectory("glueindex").toFile();
+
+        GlueIndex index = new GlueIndex(new URLClassLoader(new URL[]{dir.toURI().toURL()}, null));
+
+        assertThat(index.isAvailable()).isFalse();
+    }
+}
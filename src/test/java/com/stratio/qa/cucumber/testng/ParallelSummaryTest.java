@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import gherkin.formatter.model.Result;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelSummaryTest {
+
+    @Test
+    public void testScenariosAndStepsAreCounted() throws Exception {
+        ParallelSummary summary = new ParallelSummary();
+        summary.addScenario(Arrays.asList(result("passed"), result("passed")), Collections.singletonList(result("passed")));
+        summary.addScenario(Arrays.asList(result("failed"), result("skipped")), Collections.<Result>emptyList());
+        summary.addScenario(Collections.singletonList(result("passed")), Collections.singletonList(result("failed")));
+        summary.addScenario(Collections.singletonList(result("undefined")), Collections.<Result>emptyList());
+        summary.addSnippets(Collections.singletonList("@Given(\"^a step$\")"));
+        summary.addSnippets(Collections.singletonList("@Given(\"^a step$\")"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary.print(new PrintStream(out, true, "UTF-8"));
+        String printed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+        assertThat(printed).contains("4 Scenarios (2 failed, 1 undefined, 1 passed)")
+                .contains("6 Steps (1 failed, 1 skipped, 1 undefined, 3 passed)");
+        assertThat(printed.indexOf("^a step$")).isEqualTo(printed.lastIndexOf("^a step$"));
+    }
+
+    private static Result result(String status) {
+        Result result = mock(Result.class);
+        when(result.getStatus()).thenReturn(status);
+        return result;
+    }
+}
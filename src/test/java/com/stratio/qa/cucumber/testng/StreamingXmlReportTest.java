@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.cucumber.testng;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingXmlReportTest {
+
+    @Test
+    public void testReportIsWrittenAroundStreamedElements() throws Exception {
+        File dir = Files.createTempDirectory("report").toFile();
+        File part = new File(dir, "reportTESTNG.xml.part");
+        File report = new File(dir, "reportTESTNG.xml");
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+
+        StreamingXmlReport streaming = new StreamingXmlReport(part);
+        streaming.start("class", Collections.singletonMap("name", "TestClass"));
+        Element method = document.createElement("test-method");
+        method.setAttribute("status", "FAIL");
+        Element exception = document.createElement("exception");
+        exception.appendChild(document.createCDATASection("message with ]]> inside"));
+        method.appendChild(exception);
+        streaming.write(method);
+
+        assertThat(part).exists();
+        assertThat(new String(Files.readAllBytes(part.toPath()), "UTF-8")).contains("test-method");
+
+        streaming.finish(new FileOutputStream(report), Arrays.asList("testng-results", "suite"),
+                Arrays.asList(Collections.singletonMap("total", "1"), Collections.singletonMap("name", "suite")));
+
+        assertThat(part).doesNotExist();
+        Document written = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report);
+        assertThat(written.getDocumentElement().getAttribute("total")).isEqualTo("1");
+        assertThat(written.getElementsByTagName("test-method").getLength()).isEqualTo(1);
+        assertThat(written.getElementsByTagName("exception").item(0).getTextContent()).isEqualTo("message with ]]> inside");
+    }
+
+    @Test
+    public void testReportWithoutElementsLeavesNoPartFile() throws Exception {
+        File dir = Files.createTempDirectory("report").toFile();
+        File part = new File(dir, "emptyJUNIT.xml.part");
+        File report = new File(dir, "emptyJUNIT.xml");
+
+        StreamingXmlReport streaming = new StreamingXmlReport(part);
+        assertThat(part).doesNotExist();
+        streaming.finish(new FileOutputStream(report), Collections.singletonList("testsuites"),
+                Collections.singletonList(Collections.<String, String>emptyMap()));
+
+        assertThat(part).doesNotExist();
+        Document written = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report);
+        assertThat(written.getDocumentElement().getNodeName()).isEqualTo("testsuites");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.data;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class BrowserCapacityTest {
+
+    @Test
+    public void testScenariosWaitForAFreeSlot() throws InterruptedException {
+        // no grid set, so the browser gets a single slot
+        BrowserCapacity.INSTANCE.acquire("capacitytest_1");
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            try {
+                BrowserCapacity.INSTANCE.acquire("capacitytest_1");
+                acquired.countDown();
+                BrowserCapacity.INSTANCE.release("capacitytest_1");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.start();
+
+        assertThat(acquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        BrowserCapacity.INSTANCE.release("capacitytest_1");
+        assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+        other.join();
+    }
+
+    @Test
+    public void testWaitIsBounded() throws InterruptedException {
+        System.setProperty("GRID_SLOT_WAIT", "50");
+        BrowserCapacity.INSTANCE.acquire("capacitytimeout_1");
+        try {
+            BrowserCapacity.INSTANCE.acquire("capacitytimeout_1");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("capacitytimeout_1");
+        } finally {
+            System.clearProperty("GRID_SLOT_WAIT");
+            BrowserCapacity.INSTANCE.release("capacitytimeout_1");
+        }
+    }
+}
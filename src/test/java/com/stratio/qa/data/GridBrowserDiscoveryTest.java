@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.data;
+
+import org.jsoup.Jsoup;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GridBrowserDiscoveryTest {
+
+    @Test
+    public void testParseStatus() {
+        String json = "{\"value\": {\"ready\": true, \"nodes\": ["
+                + "{\"nodeId\": \"n1\", \"availability\": \"UP\", \"slots\": ["
+                + "{\"session\": null, \"stereotype\": {\"browserName\": \"chrome\", \"browserVersion\": \"58\", \"platformName\": \"LINUX\"}},"
+                + "{\"session\": {\"sessionId\": \"s1\"}, \"stereotype\": {\"browserName\": \"firefox\", \"browserVersion\": \"45\"}}]},"
+                + "{\"nodeId\": \"n2\", \"availability\": \"DOWN\", \"slots\": ["
+                + "{\"session\": null, \"stereotype\": {\"browserName\": \"chrome\", \"browserVersion\": \"58\"}}]}]}}";
+
+        List<GridBrowserDiscovery.Slot> slots = GridBrowserDiscovery.parseStatus(json);
+
+        assertThat(slots).hasSize(2);
+        assertThat(slots.get(0).getBrowser()).isEqualTo("chrome_58");
+        assertThat(slots.get(0).getCapabilities()).contains("platformName=LINUX").endsWith("version=58}");
+        assertThat(slots.get(0).isBusy()).isFalse();
+        assertThat(slots.get(1).getBrowser()).isEqualTo("firefox_45");
+        assertThat(slots.get(1).isBusy()).isTrue();
+        assertThat(GridBrowserDiscovery.parseStatus("{\"value\": {\"ready\": true}}")).isNull();
+    }
+
+    @Test
+    public void testParseStatusWithoutVersion() {
+        String json = "{\"value\": {\"ready\": true, \"nodes\": ["
+                + "{\"nodeId\": \"n1\", \"availability\": \"UP\", \"slots\": ["
+                + "{\"session\": null, \"stereotype\": {\"browserName\": \"chrome\", \"platformName\": \"LINUX\"}},"
+                + "{\"session\": null, \"stereotype\": {\"browserName\": \"firefox\", \"browserVersion\": \"\"}}]}]}}";
+
+        List<GridBrowserDiscovery.Slot> slots = GridBrowserDiscovery.parseStatus(json);
+
+        assertThat(slots.stream().map(GridBrowserDiscovery.Slot::getBrowser).collect(Collectors.toList()))
+                .containsExactly("chrome_any", "firefox_any");
+        assertThat(slots.get(0).getCapabilities()).doesNotContain("version");
+    }
+
+    @Test
+    public void testParseConsole() {
+        String html = "<div class=\"proxy\"><p class=\"proxyname\">node1</p><div class=\"content_detail\">"
+                + "<p><img title=\"{browserName=chrome, platformName=Android, version=58}\"/></p>"
+                + "<p><img title=\"{browserName=firefox, version=45}\"/></p>"
+                + "</div></div>"
+                + "<div class=\"proxy\"><p class=\"proxyname\">node2 (Connection refused)</p><div class=\"content_detail\">"
+                + "<p><img title=\"{browserName=chrome, version=57}\"/></p></div></div>";
+
+        List<GridBrowserDiscovery.Slot> slots = GridBrowserDiscovery.parseConsole(Jsoup.parse(html));
+
+        assertThat(slots.stream().map(GridBrowserDiscovery.Slot::getBrowser).collect(Collectors.toList()))
+                .containsExactly("chrome_58", "firefox_45");
+        assertThat(slots.get(0).getNode()).isEqualTo("node1");
+    }
+}
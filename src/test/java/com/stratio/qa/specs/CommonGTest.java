@@ -236,6 +236,40 @@ public class CommonGTest {
         JSONAssert.assertEquals(expectedData, modifiedData, false);
     }
 
+    @Test
+    public void modifyRetrievedDataJsonTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        CommonG commong = new CommonG();
+        String baseData = "retrieveDataValidJsonTest.conf";
+        String type = "json";
+        List<List<String>> rawData = Arrays.asList(Arrays.asList("key2.key3", "UPDATE", "new value3"));
+        DataTable modifications = DataTable.create(rawData);
+
+        JSONAssert.assertEquals("{\"key1\":\"value1\",\"key2\":{\"key3\":\"new value3\"}}",
+                commong.modifyRetrievedData(baseData, type, modifications), true);
+        rawData = Arrays.asList(Arrays.asList("key1", "DELETE", "N/A"));
+        JSONAssert.assertEquals("{\"key2\":{\"key3\":\"value3\"}}",
+                commong.modifyRetrievedData(baseData, type, DataTable.create(rawData)), true);
+        assertThat(commong.retrieveData(baseData, type)).isEqualTo(jsonObject1.toString());
+    }
+
+    @Test
+    public void modifyDataSeveralModificationsJsonTest() throws Exception {
+        ThreadProperty.set("class", this.getClass().getCanonicalName());
+        CommonG commong = new CommonG();
+        String data = "{\"key1\":\"value1\",\"key2\":\"value2\",\"key3\":\"value3\"}";
+        String expectedData = "{\"key1\":\"newvalue1\",\"key2\":null,\"key3\":[1,2],\"key4\":\"value4\"}";
+        String type = "json";
+        List<List<String>> rawData = Arrays.asList(Arrays.asList("key1", "UPDATE", "newvalue1", "n/a"),
+                Arrays.asList("key2", "REPLACE", "N/A", "null"),
+                Arrays.asList("key3", "REPLACE", "[1,2]", "array"),
+                Arrays.asList("key4", "ADD", "value4", "n/a"));
+        DataTable modifications = DataTable.create(rawData);
+
+        String modifiedData = commong.modifyData(data, type, modifications);
+        JSONAssert.assertEquals(expectedData, modifiedData, false);
+    }
+
     @Test
     public void removeNullsTest() throws Exception {
         ThreadProperty.set("class", this.getClass().getCanonicalName());
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DurationHistoryTest {
+
+    @Test
+    public void testHistoryIsReadOnceAndDurationsSavedApart() throws Exception {
+        File dir = Files.createTempDirectory("durations").toFile();
+        File input = new File(dir, "durations.properties");
+        File output = new File(dir, "durations-new.properties");
+        Properties previous = new Properties();
+        previous.setProperty("old.feature", "1000");
+        previous.setProperty("kept.feature", "3000");
+        try (OutputStream out = new FileOutputStream(input)) {
+            previous.store(out, null);
+        }
+        System.setProperty("DURATION_HISTORY_FILE", input.getPath());
+        System.setProperty("DURATION_HISTORY_OUTPUT", output.getPath());
+        try {
+            assertThat(DurationHistory.INSTANCE.load()).isEqualTo(previous);
+
+            DurationHistory.INSTANCE.record("old.feature", 2000);
+            DurationHistory.INSTANCE.save();
+
+            assertThat(DurationHistory.INSTANCE.load()).isEqualTo(previous);
+            Properties saved = new Properties();
+            try (InputStream in = new FileInputStream(output)) {
+                saved.load(in);
+            }
+            assertThat(saved.getProperty("old.feature")).isEqualTo("2000");
+            assertThat(saved.getProperty("kept.feature")).isEqualTo("3000");
+        } finally {
+            System.clearProperty("DURATION_HISTORY_FILE");
+            System.clearProperty("DURATION_HISTORY_OUTPUT");
+        }
+    }
+}
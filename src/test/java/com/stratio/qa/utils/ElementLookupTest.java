@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.mockito.InOrder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ElementLookupTest {
+
+    @Test
+    public void testLocatorsAreResolvedInOneScript() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        WebElement first = mock(WebElement.class);
+        WebElement second = mock(WebElement.class);
+        when(driver.executeScript(anyString(), anyVararg()))
+                .thenReturn(Arrays.asList(Arrays.asList(first, second), Collections.emptyList()));
+
+        List<List<WebElement>> found = new ElementLookup(driver, 10000).locateAll(Arrays.asList(
+                new String[]{"id", "menu"}, new String[]{"xpath", "//div[@class='none']"}));
+
+        assertThat(found).hasSize(2);
+        assertThat(found.get(0)).containsExactly(first, second);
+        assertThat(found.get(1)).isEmpty();
+        verify(driver, times(1)).executeScript(anyString(), anyVararg());
+    }
+
+    @Test
+    public void testDriversWithoutScriptsFindEachLocator() {
+        WebDriver driver = mock(WebDriver.class);
+        WebElement element = mock(WebElement.class);
+        when(driver.findElements(By.name("user"))).thenReturn(Collections.singletonList(element));
+
+        assertThat(new ElementLookup(driver, 10000).locate("name", "user")).containsExactly(element);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownMethodIsRejected() {
+        new ElementLookup(mock(WebDriver.class), 10000).locate("tag", "div");
+    }
+
+    @Test
+    public void testWaitSwitchesImplicitWaitOff() throws Exception {
+        WebDriver driver = mock(WebDriver.class, RETURNS_DEEP_STUBS);
+        WebElement element = mock(WebElement.class);
+        when(driver.findElements(By.cssSelector("li"))).thenReturn(Collections.emptyList(), Collections.singletonList(element));
+        PollingWait polling = new PollingWait(5000, 100, PollingWait.Backoff.FIXED, 100);
+
+        List<WebElement> found = new ElementLookup(driver, 10000).waitFor(polling, "css", "li", wel -> wel.size() == 1);
+
+        assertThat(found).containsExactly(element);
+        assertThat(polling.getAttempts()).isEqualTo(2);
+        InOrder order = inOrder(driver.manage().timeouts());
+        order.verify(driver.manage().timeouts()).implicitlyWait(0, TimeUnit.MILLISECONDS);
+        order.verify(driver.manage().timeouts()).implicitlyWait(10000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testPollingIntervalIsSubSecond() {
+        assertThat(ElementLookup.pollingInterval(3000)).isEqualTo(500);
+        assertThat(ElementLookup.pollingInterval(200)).isEqualTo(200);
+    }
+}
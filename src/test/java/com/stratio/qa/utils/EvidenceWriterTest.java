@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EvidenceWriterTest {
+
+    @Test
+    public void testEvidencesAreWrittenOnFlush() throws IOException {
+        File dir = Files.createTempDirectory("evidences").toFile();
+        String png = new File(dir, "capture/screen.png").getPath();
+        String html = new File(dir, "source.html").getPath();
+
+        assertThat(EvidenceWriter.INSTANCE.write(png, new byte[]{1, 2, 3})).isEqualTo(png);
+        assertThat(EvidenceWriter.INSTANCE.writeText(html, "<html></html>")).isEqualTo(html);
+        EvidenceWriter.INSTANCE.flush();
+
+        assertThat(Files.readAllBytes(new File(png).toPath())).containsExactly(1, 2, 3);
+        assertThat(new String(Files.readAllBytes(new File(html).toPath()), StandardCharsets.UTF_8)).isEqualTo("<html></html>");
+    }
+
+    @Test
+    public void testPageSourcesAreGzipped() throws IOException {
+        File dir = Files.createTempDirectory("evidences").toFile();
+        System.setProperty("EVIDENCE_GZIP", "true");
+        String html;
+        try {
+            html = EvidenceWriter.INSTANCE.writeText(new File(dir, "source.html").getPath(), "<html></html>");
+        } finally {
+            System.clearProperty("EVIDENCE_GZIP");
+        }
+        EvidenceWriter.INSTANCE.flush();
+
+        assertThat(html).endsWith(".html.gz");
+        try (GZIPInputStream in = new GZIPInputStream(new FileInputStream(html))) {
+            byte[] buffer = new byte[64];
+            int n = in.read(buffer);
+            assertThat(new String(buffer, 0, n, StandardCharsets.UTF_8)).isEqualTo("<html></html>");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JiraTicketCacheTest {
+
+    private HttpServer stub;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/rest/api/2/search", exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            reply(exchange, 200, "{\"issues\": [{\"key\": \"QA-1\", \"fields\": {\"status\": {\"name\": \"In Progress\"}}},"
+                    + "{\"key\": \"QA-2\", \"fields\": {\"status\": {\"name\": \"Done\"}}}]}");
+        });
+        stub.createContext("/rest/api/2/issue/", exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            if (exchange.getRequestURI().getPath().endsWith("QA-3")) {
+                reply(exchange, 200, "{\"key\": \"QA-3\", \"fields\": {\"status\": {\"name\": \"QA\"}}}");
+            } else if (exchange.getRequestURI().getPath().endsWith("QA-503")) {
+                reply(exchange, 503, "{\"errorMessages\": [\"Service Unavailable\"]}");
+            } else {
+                reply(exchange, 404, "{\"errorMessages\": [\"Issue Does Not Exist\"]}");
+            }
+        });
+        stub.start();
+        System.setProperty("JIRA_URL", "http://localhost:" + stub.getAddress().getPort());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        System.clearProperty("JIRA_URL");
+        JiraTicketCache.INSTANCE.clear();
+        stub.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        JiraTicketCache.INSTANCE.clear();
+        requests.clear();
+    }
+
+    @Test
+    public void testFindTickets() {
+        List<String> lines = Arrays.asList("@ignore @tillfixed(QA-1)", "Scenario: a", "@tillfixed(QA-2) @tillfixed(QA-1)");
+
+        assertThat(JiraTicketCache.findTickets(lines)).containsExactly("QA-1", "QA-2");
+    }
+
+    @Test
+    public void testPrefetchUsesOneQuery() {
+        JiraTicketCache.INSTANCE.prefetch(Arrays.asList("QA-1", "QA-2"));
+
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-1")).isEqualTo("in progress");
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-2")).isEqualTo("done");
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0)).startsWith("/rest/api/2/search?jql=");
+    }
+
+    @Test
+    public void testTicketsAreFetchedOnce() {
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-3")).isEqualTo("qa");
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-3")).isEqualTo("qa");
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-404")).isNull();
+        assertThat(JiraTicketCache.INSTANCE.getStatus("QA-404")).isNull();
+
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws IOException {
+        File cache = File.createTempFile("jira", ".properties");
+        System.setProperty("JIRA_CACHE_FILE", cache.getPath());
+        try {
+            assertThat(JiraTicketCache.INSTANCE.getStatus("QA-503")).isNull();
+            assertThat(JiraTicketCache.INSTANCE.getStatus("QA-503")).isNull();
+            assertThat(JiraTicketCache.INSTANCE.getStatus("QA-404")).isNull();
+
+            assertThat(requests).hasSize(3);
+            String saved = new String(Files.readAllBytes(cache.toPath()), StandardCharsets.UTF_8);
+            assertThat(saved).contains("QA-404").doesNotContain("QA-503");
+        } finally {
+            System.clearProperty("JIRA_CACHE_FILE");
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
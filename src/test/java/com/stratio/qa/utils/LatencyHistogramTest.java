@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+        assertThat(histogram.getMinValue()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(50);
+        assertThat(histogram.getValueAtPercentile(95)).isEqualTo(95);
+        assertThat(histogram.getMaxValue()).isEqualTo(100);
+        assertThat(histogram.getMinValue()).isEqualTo(1);
+        assertThat(histogram.getMean()).isEqualTo(50.5, within(0.001));
+    }
+
+    @Test
+    public void testLargeValuesKeepRelativePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.recordValue(i * 1000);
+        }
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(9900000L, 9900000L * 102 / 100);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10000000L);
+    }
+
+    @Test
+    public void testToMillisRoundsUp() {
+        assertThat(LatencyHistogram.toMillis(0)).isEqualTo(0);
+        assertThat(LatencyHistogram.toMillis(1)).isEqualTo(1);
+        assertThat(LatencyHistogram.toMillis(1000)).isEqualTo(1);
+        assertThat(LatencyHistogram.toMillis(1001)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class LocalBrowserServiceTest {
+
+    @Test
+    public void testDisabledByDefault() {
+        assertThat(LocalBrowserService.INSTANCE.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testMissingBinaryFailsFast() {
+        System.setProperty("PHANTOMJS_BINARY", "target/no-such-phantomjs");
+        long start = System.currentTimeMillis();
+        try {
+            LocalBrowserService.INSTANCE.url();
+            fail("PhantomJS should not have been started");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("no-such-phantomjs");
+            assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        } finally {
+            System.clearProperty("PHANTOMJS_BINARY");
+            LocalBrowserService.INSTANCE.shutdown();
+        }
+    }
+}
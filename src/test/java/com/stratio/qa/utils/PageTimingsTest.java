@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PageTimingsTest {
+
+    private Map<String, Object> timings(boolean complete, long load) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("url", "http://localhost/index.html");
+        map.put("complete", complete);
+        map.put("dns", 2L);
+        map.put("connect", 5L);
+        map.put("firstByte", 40L);
+        map.put("domContentLoaded", 300L);
+        map.put("load", load);
+        map.put("resources", 12L);
+        map.put("resourceBytes", 4096L);
+        return map;
+    }
+
+    @Test
+    public void testTimingsWaitForTheLoadEvent() throws Exception {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.executeScript(anyString(), anyVararg())).thenReturn(timings(false, -1), timings(true, 450));
+
+        PageTimings timings = PageTimings.collect(driver);
+
+        verify(driver, times(2)).executeScript(anyString(), anyVararg());
+        assertThat(timings.getUrl()).isEqualTo("http://localhost/index.html");
+        assertThat(timings.getFirstByte()).isEqualTo(40);
+        assertThat(timings.getDomContentLoaded()).isEqualTo(300);
+        assertThat(timings.getLoad()).isEqualTo(450);
+        assertThat(timings.getResources()).isEqualTo(12);
+        assertThat(timings.getResourceBytes()).isEqualTo(4096);
+        assertThat(timings.toString()).contains("load 450 ms", "12 resources");
+    }
+
+    @Test
+    public void testBrowsersWithoutTimingsAreSkipped() throws Exception {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class);
+        when(driver.executeScript(anyString(), anyVararg())).thenReturn(null);
+
+        assertThat(PageTimings.collect(driver)).isNull();
+    }
+}
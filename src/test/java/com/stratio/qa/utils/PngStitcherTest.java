@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PngStitcherTest {
+
+    private byte[] tile(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testStitchTiles() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedImage lastTile = new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB);
+        lastTile.setRGB(0, 0, Color.RED.getRGB());
+        lastTile.setRGB(0, 2, Color.GREEN.getRGB());
+        ByteArrayOutputStream last = new ByteArrayOutputStream();
+        ImageIO.write(lastTile, "png", last);
+
+        PngStitcher.stitch(Arrays.asList(tile(4, 3, Color.BLUE), tile(2, 3, Color.WHITE), last.toByteArray()), 2, out);
+        BufferedImage stitched = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(stitched.getWidth()).isEqualTo(4);
+        assertThat(stitched.getHeight()).isEqualTo(7);
+        assertThat(stitched.getRGB(3, 2)).isEqualTo(Color.BLUE.getRGB());
+        assertThat(stitched.getRGB(1, 3)).isEqualTo(Color.WHITE.getRGB());
+        assertThat(stitched.getRGB(3, 3)).isEqualTo(Color.BLACK.getRGB());
+        assertThat(stitched.getRGB(0, 6)).isEqualTo(Color.GREEN.getRGB());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class PollingWaitTest {
+
+    @Test
+    public void testConditionMet() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PollingWait polling = new PollingWait(5000, 100, PollingWait.Backoff.FIXED, 100);
+
+        assertThat(polling.until(() -> calls.incrementAndGet() == 3)).isTrue();
+        assertThat(polling.getAttempts()).isEqualTo(3);
+        assertThat(polling.getElapsed()).isBetween(200L, 5000L);
+    }
+
+    @Test
+    public void testDeadlineIsNotExceeded() throws Exception {
+        PollingWait polling = new PollingWait(500, 200, PollingWait.Backoff.FIXED, 200);
+
+        assertThat(polling.until(() -> false)).isFalse();
+        assertThat(polling.getAttempts()).isEqualTo(4);
+        assertThat(polling.getElapsed()).isBetween(500L, 1500L);
+    }
+
+    @Test
+    public void testExponentialBackoff() throws Exception {
+        PollingWait polling = new PollingWait(1000, 100, PollingWait.Backoff.EXPONENTIAL, 10000);
+
+        // Checks at 0, 100, 300, 700 and 1000 ms
+        assertThat(polling.until(() -> false)).isFalse();
+        assertThat(polling.getAttempts()).isEqualTo(5);
+    }
+
+    @Test
+    public void testParseBackoff() {
+        assertThat(PollingWait.Backoff.parse("Jittered")).isEqualTo(PollingWait.Backoff.JITTERED);
+        try {
+            PollingWait.Backoff.parse("linear");
+            fail("Unknown backoff was accepted");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("POLLING_BACKOFF", "linear", "[fixed, exponential, jittered]");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseBodyCaptureTest {
+
+    @Test
+    public void testSmallBodyStaysInMemory() throws Exception {
+        ResponseBodyCapture capture = new ResponseBodyCapture(1024, 64);
+        capture.write("{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8));
+        capture.close();
+
+        assertThat(capture.getFile()).isNull();
+        assertThat(capture.getPrefix()).isEqualTo("{\"key\":\"value\"}");
+        assertThat(capture.getSize()).isEqualTo(15);
+    }
+
+    @Test
+    public void testBigBodyIsSpilled() throws Exception {
+        ResponseBodyCapture capture = new ResponseBodyCapture(8, 64);
+        capture.write("0123456".getBytes(StandardCharsets.UTF_8));
+        capture.write("789abcdef".getBytes(StandardCharsets.UTF_8));
+        capture.write("needle".getBytes(StandardCharsets.UTF_8));
+        capture.close();
+
+        assertThat(capture.getFile()).isNotNull();
+        assertThat(capture.getFile()).hasContent("0123456789abcdefneedle");
+        assertThat(capture.getPrefix()).isEqualTo("01234567");
+        assertThat(capture.getSize()).isEqualTo(22);
+
+        HttpResponse response = new HttpResponse(200, capture.getPrefix(), null);
+        response.setBodyFile(capture.getFile());
+        assertThat(response.containsPattern(Pattern.compile(Pattern.quote("fneedle")))).isTrue();
+        assertThat(response.containsPattern(Pattern.compile("needle$"))).isTrue();
+        assertThat(response.containsPattern(Pattern.compile("haystack"))).isFalse();
+    }
+
+    @Test
+    public void testDiscardDeletesSpillFile() throws Exception {
+        ResponseBodyCapture capture = new ResponseBodyCapture(4, 64);
+        capture.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        File file = capture.getFile();
+        assertThat(file).exists();
+
+        capture.discard();
+        capture.write("abcdefghij".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(file).doesNotExist();
+        assertThat(capture.getSize()).isEqualTo(10);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = ".*2000000 bytes.*")
+    public void testSpilledBodyCannotBeParsed() throws Exception {
+        HttpResponse response = new HttpResponse(200, "[1,2", null);
+        assertThat(response.getCompleteResponse()).isEqualTo("[1,2");
+
+        response.setBodyFile(new File("body"));
+        response.setResponseBytes(2000000);
+        response.getCompleteResponse();
+    }
+}
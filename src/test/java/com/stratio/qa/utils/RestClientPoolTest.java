@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import com.ning.http.client.AsyncHttpClient;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestClientPoolTest {
+
+    @AfterClass
+    public void closePool() {
+        RestClientPool.INSTANCE.shutdown();
+    }
+
+    @Test
+    public void testSameEndpointSharesClient() {
+        AsyncHttpClient first = RestClientPool.INSTANCE.getClient("http://", "localhost", ":80");
+        long reused = RestClientPool.INSTANCE.getReusedClients();
+        AsyncHttpClient second = RestClientPool.INSTANCE.getClient("http://", "localhost", ":80");
+
+        assertThat(second).as("Pooled client not reused").isSameAs(first);
+        assertThat(RestClientPool.INSTANCE.getReusedClients()).isEqualTo(reused + 1);
+    }
+
+    @Test
+    public void testDifferentEndpointsGetDifferentClients() {
+        AsyncHttpClient plain = RestClientPool.INSTANCE.getClient("http://", "localhost", ":8080");
+        AsyncHttpClient secure = RestClientPool.INSTANCE.getClient("https://", "localhost", ":8080");
+
+        assertThat(secure).as("TLS and plain endpoints share a client").isNotSameAs(plain);
+    }
+}
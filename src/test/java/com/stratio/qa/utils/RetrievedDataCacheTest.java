@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.hjson.ParseException;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class RetrievedDataCacheTest {
+
+    @Test
+    public void testEntryIsParsedLazily() {
+        RetrievedDataCache.Entry entry = RetrievedDataCache.INSTANCE.put("cacheTestValid.conf", "{\"key1\": \"value1\"}");
+
+        assertThat(entry.getText()).isEqualTo("{\"key1\": \"value1\"}");
+        assertThat(entry.getJson()).isEqualTo("{\"key1\":\"value1\"}");
+        assertThat(RetrievedDataCache.INSTANCE.get("cacheTestValid.conf")).isSameAs(entry);
+    }
+
+    @Test
+    public void testLookup() {
+        RetrievedDataCache.INSTANCE.put("cacheTestLookup.conf", "{key1: value1}");
+
+        assertThat(RetrievedDataCache.INSTANCE.lookup("cacheTestLookup.conf", "string")).isEqualTo("{key1: value1}");
+        assertThat(RetrievedDataCache.INSTANCE.lookup("cacheTestLookup.conf", "json")).isEqualTo("{\"key1\":\"value1\"}");
+        assertThat(RetrievedDataCache.INSTANCE.lookup("cacheTestMissing.conf", "json")).isNull();
+    }
+
+    @Test
+    public void testInvalidate() {
+        RetrievedDataCache.INSTANCE.put("cacheTestInvalidate.conf", "a=b");
+        RetrievedDataCache.INSTANCE.invalidate("cacheTestInvalidate.conf");
+
+        assertThat(RetrievedDataCache.INSTANCE.get("cacheTestInvalidate.conf")).isNull();
+    }
+
+    @Test
+    public void testInvalidJsonKeepsFailing() {
+        RetrievedDataCache.Entry entry = RetrievedDataCache.INSTANCE.put("cacheTestInvalid.conf", "\"key1\": \"value1\"}");
+        for (int i = 0; i < 2; i++) {
+            try {
+                entry.getJson();
+                fail("Expected ParseException");
+            } catch (ParseException e) {
+                assertThat(entry.getText()).isEqualTo("\"key1\": \"value1\"}");
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTreeIsCopied() {
+        RetrievedDataCache.Entry entry = RetrievedDataCache.INSTANCE.put("cacheTestTree.conf", "{key1: value1, key2: {key3: [1, 2]}}");
+
+        Map<String, Object> tree = (Map<String, Object>) entry.copyTree();
+        assertThat(tree).containsEntry("key1", "value1");
+        tree.put("key1", "modified");
+        ((List<Object>) ((Map<String, Object>) tree.get("key2")).get("key3")).add(3);
+
+        Map<String, Object> again = (Map<String, Object>) entry.copyTree();
+        assertThat(again).containsEntry("key1", "value1");
+        assertThat((List<Object>) ((Map<String, Object>) again.get("key2")).get("key3")).hasSize(2);
+    }
+}
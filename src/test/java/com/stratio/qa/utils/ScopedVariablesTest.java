@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScopedVariablesTest {
+
+    @Test
+    public void testScenarioVariablesAreDropped() {
+        ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "scopedScenario", "1");
+        assertThat(ScopedVariables.get("scopedScenario")).isEqualTo("1");
+
+        ScopedVariables.endScenario();
+        assertThat(ScopedVariables.get("scopedScenario")).isNull();
+    }
+
+    @Test
+    public void testFeatureVariablesAreDropped() {
+        ThreadProperty.set("scopedClass", "MyIT");
+        ScopedVariables.enterFeature("scoped.feature");
+        try {
+            ThreadProperty.set("scopedFeature", "2");
+            ScopedVariables.endScenario();
+            assertThat(ThreadProperty.get("scopedFeature")).isEqualTo("2");
+        } finally {
+            ScopedVariables.exitFeature("scoped.feature");
+        }
+
+        assertThat(ThreadProperty.get("scopedFeature")).isNull();
+        assertThat(ThreadProperty.get("scopedClass")).isEqualTo("MyIT");
+    }
+
+    @Test
+    public void testNarrowestScopeWins() {
+        ScopedVariables.set(ScopedVariables.Scope.SUITE, "scopedShadow", "suite");
+        ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "scopedShadow", "scenario");
+        assertThat(ScopedVariables.get("scopedShadow")).isEqualTo("scenario");
+
+        ScopedVariables.endScenario();
+        assertThat(ScopedVariables.get("scopedShadow")).isEqualTo("suite");
+    }
+
+    @Test
+    public void testChildThreadsInheritContext() throws InterruptedException {
+        ScopedVariables.enterFeature("inherited.feature");
+        try {
+            ThreadProperty.set("scopedParent", "3");
+            AtomicReference<String> seen = new AtomicReference<>();
+            Thread child = new Thread(() -> {
+                seen.set(ThreadProperty.get("scopedParent"));
+                ScopedVariables.set(ScopedVariables.Scope.SCENARIO, "scopedChild", "4");
+            });
+            child.start();
+            child.join();
+
+            assertThat(seen.get()).isEqualTo("3");
+            assertThat(ScopedVariables.get("scopedChild")).isEqualTo("4");
+        } finally {
+            ScopedVariables.endScenario();
+            ScopedVariables.exitFeature("inherited.feature");
+        }
+    }
+
+    @Test
+    public void testConcurrentRunsOfAFeatureKeepTheirVariables() throws Exception {
+        CountDownLatch saved = new CountDownLatch(2);
+        CountDownLatch firstDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> {
+                ScopedVariables.enterFeature("concurrent.feature");
+                try {
+                    ThreadProperty.set("dataSet", "chrome");
+                    saved.countDown();
+                    saved.await(5, TimeUnit.SECONDS);
+                    return ThreadProperty.get("dataSet");
+                } finally {
+                    ScopedVariables.exitFeature("concurrent.feature");
+                    firstDone.countDown();
+                }
+            });
+            Future<String> second = executor.submit(() -> {
+                ScopedVariables.enterFeature("concurrent.feature");
+                try {
+                    ThreadProperty.set("dataSet", "firefox");
+                    saved.countDown();
+                    firstDone.await(5, TimeUnit.SECONDS);
+                    ThreadProperty.set("scopedLater", "5");
+                    ScopedVariables.endScenario();
+                    return ThreadProperty.get("dataSet") + "," + ThreadProperty.get("scopedLater");
+                } finally {
+                    ScopedVariables.exitFeature("concurrent.feature");
+                }
+            });
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("chrome");
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("firefox,5");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
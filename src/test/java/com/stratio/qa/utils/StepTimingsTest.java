@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StepTimingsTest {
+
+    @BeforeMethod
+    public void reset() {
+        StepTimings.INSTANCE.clear();
+    }
+
+    @Test
+    public void testRecordByPattern() {
+        StepTimings.INSTANCE.record("^I wait '(\\d+?)' seconds?$", 2_000_000L);
+        StepTimings.INSTANCE.record("^I wait '(\\d+?)' seconds?$", 4_000_000L);
+
+        LatencyHistogram histogram = StepTimings.INSTANCE.get("^I wait '(\\d+?)' seconds?$");
+        assertThat(histogram.getTotalCount()).isEqualTo(2);
+        assertThat(histogram.getMaxValue()).isEqualTo(4000);
+    }
+
+    @Test
+    public void testReportSortsByTotalTime() {
+        StepTimings.INSTANCE.record("fast", 1_000_000L);
+        StepTimings.INSTANCE.record("fast", 1_000_000L);
+        StepTimings.INSTANCE.record("slow", 500_000_000L);
+        StepTimings.INSTANCE.record("medium", 10_000_000L);
+
+        String[] lines = StepTimings.INSTANCE.report(2).split(System.lineSeparator());
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("calls").endsWith("pattern");
+        assertThat(lines[1]).endsWith("slow");
+        assertThat(lines[2]).endsWith("medium");
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 Stratio (http://stratio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.stratio.qa.utils;
+
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WebDriverPoolTest {
+
+    private RemoteWebDriver newDriver() {
+        RemoteWebDriver driver = mock(RemoteWebDriver.class, RETURNS_DEEP_STUBS);
+        when(driver.getWindowHandle()).thenReturn("main");
+        when(driver.getWindowHandles()).thenReturn(Collections.singleton("main"));
+        return driver;
+    }
+
+    @Test
+    public void testResetKeepsTheOriginalWindow() {
+        RemoteWebDriver driver = newDriver();
+
+        WebDriverPool.INSTANCE.acquire("poolwindow_1", () -> driver);
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(Arrays.asList("popup", "main")));
+        WebDriverPool.INSTANCE.release(driver, false);
+
+        verify(driver.switchTo()).window("popup");
+        verify(driver, times(1)).close();
+        verify(driver.switchTo()).window("main");
+        verify(driver, never()).quit();
+    }
+
+    @Test
+    public void testSessionIsRecycledWithoutItsOriginalWindow() {
+        RemoteWebDriver driver = newDriver();
+
+        WebDriverPool.INSTANCE.acquire("poolnowindow_1", () -> driver);
+        when(driver.getWindowHandles()).thenReturn(Collections.singleton("popup"));
+        WebDriverPool.INSTANCE.release(driver, false);
+
+        verify(driver).quit();
+    }
+
+    @Test
+    public void testSessionIsResetAndReused() {
+        RemoteWebDriver driver = newDriver();
+
+        assertThat(WebDriverPool.INSTANCE.acquire("poolreuse_1", () -> driver)).isSameAs(driver);
+        WebDriverPool.INSTANCE.release(driver, false);
+
+        verify(driver.manage()).deleteAllCookies();
+        verify(driver).get("about:blank");
+        verify(driver, never()).quit();
+        assertThat(WebDriverPool.INSTANCE.acquire("poolreuse_1", this::newDriver)).isSameAs(driver);
+        assertThat(WebDriverPool.INSTANCE.acquire("poolreuse_1", this::newDriver)).isNotSameAs(driver);
+    }
+
+    @Test
+    public void testSessionIsRecycledAfterAnError() {
+        RemoteWebDriver driver = newDriver();
+
+        WebDriverPool.INSTANCE.acquire("poolerror_1", () -> driver);
+        WebDriverPool.INSTANCE.release(driver, true);
+
+        verify(driver).quit();
+        assertThat(WebDriverPool.INSTANCE.acquire("poolerror_1", this::newDriver)).isNotSameAs(driver);
+    }
+
+    @Test
+    public void testSessionIsRecycledAfterMaxUses() {
+        System.setProperty("WEBDRIVER_MAX_USES", "2");
+        try {
+            RemoteWebDriver driver = newDriver();
+            for (int i = 0; i < 2; i++) {
+                assertThat(WebDriverPool.INSTANCE.acquire("poolmax_1", () -> driver)).isSameAs(driver);
+                WebDriverPool.INSTANCE.release(driver, false);
+            }
+
+            verify(driver).quit();
+        } finally {
+            System.clearProperty("WEBDRIVER_MAX_USES");
+        }
+    }
+}